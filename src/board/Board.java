@@ -31,6 +31,22 @@ public class Board {
         return pieces[row][column];
     }
     
+    //Squares are numbered row by row from 0, row * getColumns() + column.
+    public Piece piece(int square){
+        return piece(square / columns, square % columns);
+    }
+    
+    public Position position(int square){
+        if(square < 0 || square >= rows * columns){
+            throw new BoardException("Position not on the board.");
+        }
+        return Position.of(square / columns, square % columns);
+    }
+    
+    public int square(Position position){
+        return position.getRow() * columns + position.getColumn();
+    }
+    
     public Piece piece(Position position){
         if(!positionExists(position)){
             throw new BoardException("Position not on the board.");
@@ -69,6 +85,10 @@ public class Board {
         return positionExists(position.getRow(), position.getColumn());
     }
     
+    public boolean thereIsAPiece(int row, int column){
+        return piece(row, column) != null;
+    }
+    
     public boolean thereIsAPiece(Position position){
         if(!positionExists(position)){
             throw new BoardException("Position not on the board.");
@@ -1,35 +1,66 @@
 package board;
 
-public class Position {
-    private int row;
-    private int column;
+/*
+Immutable, so the same instance can be shared by every board and piece. Position.of hands out
+interned instances for every square of boards up to 8x8 and two squares around them, which
+covers every step a piece can try while looking for moves.
+*/
+public final class Position {
+    private static final int MIN = -2;
+    private static final int MAX = 9;
+    private static final int SPAN = MAX - MIN + 1;
+    private static final Position[] CACHE = new Position[SPAN * SPAN];
+    
+    static{
+        for(int i = 0; i < SPAN; i++){
+            for(int j = 0; j < SPAN; j++){
+                CACHE[i * SPAN + j] = new Position(i + MIN, j + MIN);
+            }
+        }
+    }
+    
+    private final int row;
+    private final int column;
     
     public Position(int row, int column){
         this.row = row;
         this.column = column;
     }
     
-    public void setRow(int row){
-        this.row = row;
+    public static Position of(int row, int column){
+        if(row < MIN || row > MAX || column < MIN || column > MAX){
+            return new Position(row, column);
+        }
+        return CACHE[(row - MIN) * SPAN + (column - MIN)];
     }
+    
     public int getRow(){
         return row;
     }
     
-    public void setColumn(int column){
-        this.column = column;
-    }
     public int getColumn(){
         return column;
     }
     
-    public void setValues(int row, int column){
-        this.row = row;
-        this.column = column;
+    @Override
+    public boolean equals(Object obj){
+        if(this == obj){
+            return true;
+        }
+        if(!(obj instanceof Position)){
+            return false;
+        }
+        Position other = (Position) obj;
+        return row == other.row && column == other.column;
+    }
+    
+    @Override
+    public int hashCode(){
+        return row * 31 + column;
     }
     
     @Override
     public String toString(){
         return row + ", " + column;
     }
-}
\ No newline at end of file
+}
@@ -3,17 +3,32 @@ package chess;
 import board.Board;
 import board.Piece;
 import board.Position;
+import chess.clock.GameClock;
+import chess.events.EventRing;
+import chess.events.MatchEventType;
+import chess.metrics.LegalMoveSearchEvent;
+import chess.metrics.Metrics;
+import chess.metrics.MoveEvent;
+import chess.metrics.MoveGenerationEvent;
+import chess.nnue.Accumulator;
+import chess.nnue.Network;
 import chess.pieces.Bishop;
 import chess.pieces.King;
 import chess.pieces.Knight;
 import chess.pieces.Pawn;
 import chess.pieces.Queen;
 import chess.pieces.Rook;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class ChessMatch {
+    static final int STATE_CAPACITY = 64; //Enough for the largest state written by writeState
+    static final int HISTORY_CAPACITY = 2 + 8 * 255; //Enough for the largest history written by writeHistory
+    
     private int turn;
     private Color currentPlayer;
     private Board board;
@@ -21,6 +36,19 @@ public class ChessMatch {
     private boolean checkmate;
     private ChessPiece enPassantVulnerable;
     private ChessPiece promoted;
+    private int halfmoveClock; //Plies since the last capture or pawn move, for the fifty-move rule
+    private DrawReason drawReason;
+    private EventRing events; //Null unless someone follows the match
+    private GameClock clock; //Null for untimed matches
+    private Color lostOnTime; //The player whose time ran out, null if nobody's did
+    private volatile PositionSnapshot snapshot; //Replaced after every committed change, read from any thread
+    
+    private long pieceHash; //Zobrist hash of the pieces only, kept up to date by placePiece and removePiece
+    private int[] pieceCounts = new int[16]; //Number of pieces on the board, indexed by PieceCode
+    private Accumulator accumulator; //Null unless a network evaluates the match, kept up to date like the hash
+    private long[] hashHistory = new long[64]; //Hash of every position reached by committed moves
+    private int hashCount;
+    private int trialMoves; //Moves tried by the last legal move search, for LegalMoveSearchEvent
     
     /*
     Letting it be a Piece type instead of ChessPiece in order to let it be more generic, 
@@ -29,6 +57,10 @@ public class ChessMatch {
     private List<Piece> piecesOnTheBoard = new ArrayList<>(); //List of all pieces on the board
     private List<Piece> capturedPieces = new ArrayList<>(); //List of all captured pieces
     
+    private List<MoveRecord> moveHistory = new ArrayList<>(); //Committed moves, used as an undo stack
+    private List<MoveRecord> redoStack = new ArrayList<>(); //Moves taken back that can be replayed
+    private ChessPiece[] spare; //Pieces of the replaced state while readState runs
+    
     
     public ChessMatch(){
         board = new Board(8, 8);
@@ -36,6 +68,8 @@ public class ChessMatch {
         
         turn = 1;
         currentPlayer = Color.WHITE;
+        pushHash(getPositionHash());
+        publishSnapshot();
     }
     
     public int getTurn(){
@@ -54,6 +88,44 @@ public class ChessMatch {
         return checkmate;
     }
     
+    public boolean getDraw(){
+        return drawReason != null;
+    }
+    
+    public DrawReason getDrawReason(){
+        return drawReason;
+    }
+    
+    //The player who lost on time, null if nobody did.
+    public Color getLostOnTime(){
+        return lostOnTime;
+    }
+    
+    public int getHalfmoveClock(){
+        return halfmoveClock;
+    }
+    
+    //The position after the last committed change. Safe to call from any thread, the match itself isn't.
+    public PositionSnapshot getSnapshot(){
+        return snapshot;
+    }
+    
+    //Hash of the position, including side to move, castling rights and en passant column.
+    public long getPositionHash(){
+        long hash = pieceHash;
+        if(currentPlayer == Color.BLACK){
+            hash ^= Zobrist.BLACK_TO_MOVE;
+        }
+        if(canStillCastle(7, 4, 7)) hash ^= Zobrist.CASTLING[0];
+        if(canStillCastle(7, 4, 0)) hash ^= Zobrist.CASTLING[1];
+        if(canStillCastle(0, 4, 7)) hash ^= Zobrist.CASTLING[2];
+        if(canStillCastle(0, 4, 0)) hash ^= Zobrist.CASTLING[3];
+        if(enPassantCapturable()){
+            hash ^= Zobrist.EN_PASSANT[enPassantVulnerable.getChessPosition().toPosition().getColumn()];
+        }
+        return hash;
+    }
+    
     public ChessPiece getEnPassantVulnerable(){
         return enPassantVulnerable;
     }
@@ -73,13 +145,76 @@ public class ChessMatch {
         return mat;
     }
     
+    public List<MoveRecord> getMoveHistory(){
+        return Collections.unmodifiableList(moveHistory);
+    }
+    
+    public boolean canUndo(){
+        return !moveHistory.isEmpty();
+    }
+    
+    public boolean canRedo(){
+        return !redoStack.isEmpty();
+    }
+    
     public boolean[][] possibleMoves(ChessPosition sourcePosition){
         Position position = sourcePosition.toPosition();
         validateSourcePosition(position);
-        return board.piece(position).possibleMoves();
+        return pieceMoves(board.piece(position));
+    }
+    
+    //Squares numbered as in Moves, a8 is 0 and h1 is 63.
+    public boolean[][] possibleMoves(int square){
+        return possibleMoves(ChessPosition.of(square));
+    }
+    
+    public ChessPiece performChessMove(int source, int target){
+        return performChessMove(ChessPosition.of(source), ChessPosition.of(target));
     }
     
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition){
+        if(!MoveEvent.enabled()){
+            return applyChessMove(sourcePosition, targetPosition);
+        }
+        MoveEvent event = new MoveEvent();
+        event.ply = moveHistory.size() + 1;
+        event.positionHash = getPositionHash();
+        event.begin();
+        try{
+            ChessPiece capturedPiece = applyChessMove(sourcePosition, targetPosition);
+            event.outcome = checkmate ? "checkmate" : (drawReason != null) ? "draw" : check ? "check" : "moved";
+            return capturedPiece;
+        }
+        catch(ChessException e){
+            event.outcome = "rejected";
+            event.message = e.getMessage();
+            throw e;
+        }
+        finally{
+            event.end();
+            if(event.shouldCommit()){
+                event.source = String.valueOf(sourcePosition);
+                event.target = String.valueOf(targetPosition);
+                event.commit();
+            }
+        }
+    }
+    
+    private ChessPiece applyChessMove(ChessPosition sourcePosition, ChessPosition targetPosition){
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        if(checkmate){
+            throw new ChessException("The game is over, " + currentPlayer + " won by checkmate.");
+        }
+        if(drawReason != null){
+            throw new ChessException("The game is over, it was drawn by " + drawReason + ".");
+        }
+        if(lostOnTime != null){
+            throw new ChessException("The game is over, " + lostOnTime + " lost on time.");
+        }
+        if(clock != null && clock.isOutOfTime(currentPlayer)){
+            loseOnTime(currentPlayer);
+            throw new ChessException("Time is up for " + currentPlayer + ".");
+        }
         Position source = sourcePosition.toPosition();
         Position target = targetPosition.toPosition();
         validateSourcePosition(source);
@@ -89,39 +224,274 @@ public class ChessMatch {
         //If the player puts himself in check.
         if(testCheck(currentPlayer)){
             undoMove(source, target, capturedPiece);
+            if(Metrics.ENABLED){
+                Metrics.REJECTED_MOVE.record(System.nanoTime() - start);
+            }
             throw new ChessException("You can not put yourself in check.");
         }
         
+        MoveRecord record = commitMove(source, target, capturedPiece, "Q");
+        redoStack.clear(); //A new move ends the line that was taken back
+    
+        pushHash(0L); //Filled in by updateGameEnd once the side to move is known
+        updateGameEnd(record);
+        boolean inTime = (clock == null) || clock.press(record.previousPlayer());
+        updateClock();
+    
+        if(events != null){
+            events.publish(MatchEventType.MOVE, moveHistory.size(), square(source), square(target), PieceCode.of(record.getMovedPiece()), PieceCode.of(record.getCapturedPiece()));
+            publishResult(record);
+        }
+        if(!inTime){
+            loseOnTime(record.previousPlayer()); //The flag fell while the move was being made; the move stands, the game is lost
+        }
+    
+        if(Metrics.ENABLED){
+            Metrics.PERFORM_MOVE.record(System.nanoTime() - start);
+        }
+        return (ChessPiece) capturedPiece;
+    }
+    
+    //Everything a committed move changes besides the board itself, up to the game end state.
+    private MoveRecord commitMove(Position source, Position target, Piece capturedPiece, String promotionType){
         ChessPiece movedPiece = (ChessPiece) board.piece(target);
+    
+        MoveRecord record = new MoveRecord(source, target, movedPiece, (ChessPiece) capturedPiece, turn, currentPlayer, check, checkmate, enPassantVulnerable, promoted,
+                halfmoveClock, drawReason);
+        moveHistory.add(record);
+    
+        halfmoveClock = (movedPiece instanceof Pawn || capturedPiece != null) ? 0 : halfmoveClock + 1;
         
         //#Special move promotion
         promoted = null;
         if(movedPiece instanceof Pawn){
             if((movedPiece.getColor() == Color.WHITE && target.getRow() == 0) || (movedPiece.getColor() == Color.BLACK && target.getRow() == 7)){
                 promoted = (ChessPiece)board.piece(target);
-                promoted = replacePromotedPiece("Q");
+                promoted = promote(promotionType);
             }
         }
         
-        //Checks if the match is in check or not;
-        check = (testCheck(opponent(currentPlayer))) ? true : false;
-        
-        if(testCheckMate(opponent(currentPlayer))){
-            checkmate = true;
-        }
-        else{
-            nextTurn();
-        }
-        
         //#Special move En Passant
+        //Set before looking for replies, so that taking en passant counts as a way out.
         if(movedPiece instanceof Pawn && (target.getRow() == source.getRow() + 2 || target.getRow() == source.getRow() - 2)){
             enPassantVulnerable = movedPiece;
         }
         else{
             enPassantVulnerable = null;
         }
+        return record;
+    }
         
-        return (ChessPiece) capturedPiece;
+    /*
+    Search support. Moves are packed ints (see Moves) and pushMove skips validation and
+    the checkmate/stalemate test, which the search works out itself from the legal moves.
+    Draws by rule are still detected. popMove takes the move back without touching the redo stack.
+    */
+    public int pieceAt(int square){
+        return PieceCode.of((ChessPiece) board.piece(square / 8, square % 8));
+    }
+    
+    //Fills the array with the legal moves of the player to move and returns how many there are.
+    public int generateLegalMoves(int[] moves){
+        return generateLegalMoves(moves, false, false);
+    }
+    
+    //Only captures (en passant included) and promotions, for the quiescence part of a search.
+    public int generateLegalCaptures(int[] moves){
+        return generateLegalMoves(moves, true, false);
+    }
+    
+    //Whether the player to move has any legal move at all; stops at the first one found.
+    public boolean canMove(){
+        return !checkmate && hasAnyLegalMove(currentPlayer);
+    }
+    
+    //Only the moves that give check, castling and under-promotions included, for mate solving.
+    public int generateLegalChecks(int[] moves){
+        return generateLegalMoves(moves, false, true);
+    }
+    
+    private int generateLegalMoves(int[] moves, boolean capturesOnly, boolean checksOnly){
+        if(checkmate){
+            return 0; //The game is over and currentPlayer is still the winner
+        }
+        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == currentPlayer).collect(Collectors.toList());
+        int count = 0;
+    
+        for(Piece p : list){
+            boolean[][] mat = pieceMoves(p);
+            Position source = ((ChessPiece)p).getChessPosition().toPosition();
+    
+            for(int i = 0; i < board.getRows(); i++){
+                for(int j = 0; j < board.getColumns(); j++){
+                    if(mat[i][j]){
+                        if(capturesOnly && board.piece(i, j) == null && !(p instanceof Pawn && (j != source.getColumn() || i == 0 || i == board.getRows() - 1))){
+                            continue;
+                        }
+                        Position target = Position.of(i, j);
+                        Piece capturedPiece = makeMove(source, target);
+                        boolean legal = !testCheck(currentPlayer);
+                        boolean promotion = p instanceof Pawn && (i == 0 || i == board.getRows() - 1);
+                        int checks = (legal && checksOnly) ? givingCheck(target, promotion) : 0;
+                        undoMove(source, target, capturedPiece);
+    
+                        if(checksOnly){
+                            int move = Moves.pack(square(source), square(target), PieceCode.EMPTY);
+                            for(int type = PieceCode.EMPTY; type <= PieceCode.QUEEN; type++){
+                                if((checks & (1 << type)) != 0){
+                                    moves[count++] = move | (type << 12);
+                                }
+                            }
+                        }
+                        else if(legal){
+                            int move = Moves.pack(square(source), square(target), PieceCode.EMPTY);
+                            if(promotion){
+                                moves[count++] = move | (PieceCode.QUEEN << 12);
+                                moves[count++] = move | (PieceCode.KNIGHT << 12);
+                                moves[count++] = move | (PieceCode.ROOK << 12);
+                                moves[count++] = move | (PieceCode.BISHOP << 12);
+                            }
+                            else{
+                                moves[count++] = move;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return count;
+    }
+    
+    /*
+    For a move just made on the board: bit 0 set if it gives check, or for a promotion, bit t set
+    if promoting to piece type t gives check. The pawn is only replaced when a move is committed,
+    so each promotion piece is put in its place for the test.
+    */
+    private int givingCheck(Position target, boolean promotion){
+        if(!promotion){
+            return testCheck(opponent(currentPlayer)) ? 1 : 0;
+        }
+        int checks = 0;
+        Piece pawn = removePiece(target);
+        int index = piecesOnTheBoard.indexOf(pawn);
+        for(int type = PieceCode.KNIGHT; type <= PieceCode.QUEEN; type++){
+            ChessPiece piece = newPiece(String.valueOf(PieceCode.letter(type)), currentPlayer);
+            placePiece(piece, target);
+            piecesOnTheBoard.set(index, piece);
+            if(testCheck(opponent(currentPlayer))){
+                checks |= 1 << type;
+            }
+            removePiece(target);
+        }
+        placePiece(pawn, target);
+        piecesOnTheBoard.set(index, pawn);
+        return checks;
+    }
+    
+    //Search's make move, taken back with popMove. Leaves the redo stack alone, so a search on a live match keeps the user's taken back moves.
+    public void pushMove(int move){
+        Position source = position(Moves.source(move));
+        Position target = position(Moves.target(move));
+        Piece capturedPiece = makeMove(source, target);
+    
+        int promotion = Moves.promotion(move);
+        MoveRecord record = commitMove(source, target, capturedPiece, (promotion == PieceCode.EMPTY) ? "Q" : String.valueOf(PieceCode.letter(promotion)));
+    
+        check = testCheck(opponent(currentPlayer));
+        checkmate = false;
+        nextTurn();
+        pushHash(getPositionHash());
+        drawReason = testDraw();
+        record.setResult(check, checkmate, enPassantVulnerable, halfmoveClock, drawReason);
+    }
+    
+    public void popMove(){
+        undo();
+    }
+    
+    //A detached copy of the current position, sharing nothing with this match. The move history isn't copied.
+    public ChessMatch copy(){
+        ByteBuffer buf = ByteBuffer.allocate(STATE_CAPACITY);
+        writeState(buf);
+        buf.flip();
+    
+        ChessMatch copy = new ChessMatch();
+        copy.readState(buf);
+        copy.hashHistory = Arrays.copyOf(hashHistory, hashHistory.length);
+        copy.hashCount = hashCount;
+        if(accumulator != null){
+            copy.setNetwork(accumulator.getNetwork());
+        }
+        return copy;
+    }
+    
+    //Takes back the last committed move, restoring every piece of state it changed.
+    public MoveRecord undoLastMove(){
+        MoveRecord record = undo();
+        redoStack.add(record);
+        updateClock();
+        publishSnapshot();
+        return record;
+    }
+    
+    private MoveRecord undo(){
+        if(moveHistory.isEmpty()){
+            throw new ChessException("There is no move to undo.");
+        }
+        MoveRecord record = moveHistory.remove(moveHistory.size() - 1);
+    
+        //#Special move promotion --> put the pawn back before moving it
+        if(record.getPromotedPiece() != null){
+            removePiece(record.target());
+            piecesOnTheBoard.remove(record.getPromotedPiece());
+            placePiece(record.getMovedPiece(), record.target());
+            piecesOnTheBoard.add(record.getMovedPiece());
+        }
+    
+        enPassantVulnerable = record.previousEnPassantVulnerable();
+        undoMove(record.source(), record.target(), record.getCapturedPiece());
+    
+        turn = record.previousTurn();
+        currentPlayer = record.previousPlayer();
+        check = record.previousCheck();
+        checkmate = record.previousCheckmate();
+        promoted = record.previousPromoted();
+        halfmoveClock = record.previousHalfmoveClock();
+        drawReason = record.previousDrawReason();
+        hashCount--;
+        return record;
+    }
+    
+    //Replays a move previously taken back, without validating it again.
+    public MoveRecord redoMove(){
+        if(redoStack.isEmpty()){
+            throw new ChessException("There is no move to redo.");
+        }
+        MoveRecord record = redoStack.remove(redoStack.size() - 1);
+    
+        makeMove(record.source(), record.target());
+    
+        if(record.getPromotedPiece() != null){
+            piecesOnTheBoard.remove(removePiece(record.target()));
+            placePiece(record.getPromotedPiece(), record.target());
+            piecesOnTheBoard.add(record.getPromotedPiece());
+        }
+    
+        check = record.getCheck();
+        checkmate = record.getCheckmate();
+        enPassantVulnerable = record.enPassantVulnerable();
+        promoted = record.getPromotedPiece();
+        halfmoveClock = record.getHalfmoveClock();
+        drawReason = record.getDrawReason();
+        if(!checkmate){
+            nextTurn();
+        }
+        pushHash(getPositionHash());
+    
+        moveHistory.add(record);
+        updateClock();
+        publishSnapshot();
+        return record;
     }
     
     public ChessPiece replacePromotedPiece(String type){
@@ -132,13 +502,116 @@ public class ChessMatch {
             return promoted;
         }
         
+        ChessPiece newPiece = promote(type);
+    
+        //A different piece can change check, checkmate, stalemate and the position hash.
+        MoveRecord record = moveHistory.get(moveHistory.size() - 1);
+        updateGameEnd(record);
+        updateClock();
+    
+        if(events != null){
+            publishResult(record);
+        }
+    
+        return newPiece;
+    }
+    
+    /*
+    Times the match: from now on every move is charged to the mover and a move is refused once the
+    mover's time is up. Taking moves back doesn't give time back, the clock just goes to the side to move.
+    */
+    public void setClock(GameClock clock){
+        this.clock = clock;
+        updateClock();
+    }
+    
+    public GameClock getClock(){
+        return clock;
+    }
+    
+    /*
+    Ends the game because the player's time ran out, e.g. from the clock's flag callback once it is
+    handed over to the match thread. Does nothing if the game has already ended.
+    */
+    public void loseOnTime(Color player){
+        if(lostOnTime != null || checkmate || drawReason != null){
+            return;
+        }
+        lostOnTime = player;
+        updateClock();
+        if(events != null){
+            ChessPiece king = king(player);
+            int square = square(king.getChessPosition().toPosition());
+            events.publish(MatchEventType.TIME_FORFEIT, moveHistory.size(), square, square, PieceCode.of(king), PieceCode.EMPTY);
+        }
+    }
+    
+    //Runs the clock of the side to move, or stops both once the game is over.
+    private void updateClock(){
+        if(clock == null){
+            return;
+        }
+        if(checkmate || drawReason != null || lostOnTime != null){
+            clock.stop();
+        }
+        else if(clock.getRunning() != currentPlayer){
+            clock.switchTo(currentPlayer);
+        }
+    }
+    
+    //Keeps an accumulator for the network from now on, or stops with null. Search evaluations use it when there is one.
+    public void setNetwork(Network network){
+        accumulator = (network == null) ? null : new Accumulator(network);
+        if(accumulator != null){
+            for(int square = 0; square < 64; square++){
+                int code = pieceAt(square);
+                if(code != PieceCode.EMPTY){
+                    accumulator.add(code, square);
+                }
+            }
+        }
+    }
+    
+    public Accumulator getAccumulator(){
+        return accumulator;
+    }
+    
+    //Events are only published for moves of the game, never for the trial moves of a search.
+    public void setEventRing(EventRing events){
+        this.events = events;
+    }
+    
+    public EventRing getEventRing(){
+        return events;
+    }
+    
+    private void publishResult(MoveRecord record){
+        int ply = moveHistory.size();
+        int target = square(record.target());
+        if(record.getPromotedPiece() != null){
+            events.publish(MatchEventType.PROMOTION, ply, target, target, PieceCode.of(record.getPromotedPiece()), PieceCode.EMPTY);
+        }
+        if(check){
+            ChessPiece king = king(opponent(record.previousPlayer()));
+            int square = square(king.getChessPosition().toPosition());
+            events.publish(checkmate ? MatchEventType.CHECKMATE : MatchEventType.CHECK, ply, square, square, PieceCode.of(king), PieceCode.EMPTY);
+        }
+        if(drawReason != null){
+            events.publish(MatchEventType.DRAW, ply, 0, 0, PieceCode.EMPTY, PieceCode.EMPTY);
+        }
+    }
+    
+    private ChessPiece promote(String type){
         Position pos = promoted.getChessPosition().toPosition();
-        Piece p = board.removePiece(pos);
+        Piece p = removePiece(pos);
         piecesOnTheBoard.remove(p);
         
         ChessPiece newPiece = newPiece(type, promoted.getColor());
-        board.placePiece(newPiece, pos);
+        placePiece(newPiece, pos);
         piecesOnTheBoard.add(newPiece);
+    
+        promoted = newPiece;
+        moveHistory.get(moveHistory.size() - 1).setPromotedPiece(newPiece);
         
         return newPiece;
     }
@@ -150,16 +623,399 @@ public class ChessMatch {
         return new Queen(board, color);
     }
     
+    private ChessPiece newPiece(int code){
+        Color color = PieceCode.color(code);
+        switch(PieceCode.type(code)){
+            case PieceCode.PAWN: return new Pawn(board, color, this);
+            case PieceCode.KING: return new King(board, color, this);
+            default: return newPiece(String.valueOf(PieceCode.letter(code & 7)), color);
+        }
+    }
+    
+    /*
+    Compact state used for checkpoints and MatchCodec: the board packed two squares per byte, one
+    "has it moved" bit per piece (all castling and pawn double steps care about), the captured pieces
+    packed two per byte and the match flags. 42 bytes at the start, never more than STATE_CAPACITY.
+    The move history is not part of it.
+    */
+    void writeState(ByteBuffer buf){
+        for(int i = 0; i < board.getRows(); i++){
+            for(int j = 0; j < board.getColumns(); j += 2){
+                int low = PieceCode.of((ChessPiece) board.piece(i, j));
+                int high = PieceCode.of((ChessPiece) board.piece(i, j + 1));
+                buf.put((byte) (low | (high << 4)));
+            }
+        }
+        int bits = 0;
+        int n = 0;
+        for(int i = 0; i < board.getRows(); i++){
+            for(int j = 0; j < board.getColumns(); j++){
+                ChessPiece p = (ChessPiece) board.piece(i, j);
+                if(p != null){
+                    bits |= (p.getMoveCount() > 0 ? 1 : 0) << (n & 7);
+                    if((++n & 7) == 0){
+                        buf.put((byte) bits);
+                        bits = 0;
+                    }
+                }
+            }
+        }
+        if((n & 7) != 0){
+            buf.put((byte) bits);
+        }
+        buf.put((byte) capturedPieces.size());
+        for(int i = 0; i < capturedPieces.size(); i += 2){
+            int low = PieceCode.of((ChessPiece) capturedPieces.get(i));
+            int high = (i + 1 < capturedPieces.size()) ? PieceCode.of((ChessPiece) capturedPieces.get(i + 1)) : PieceCode.EMPTY;
+            buf.put((byte) (low | (high << 4)));
+        }
+        int flags = (currentPlayer == Color.BLACK ? 1 : 0) | (check ? 2 : 0) | (checkmate ? 4 : 0) | ((drawReason == null ? 0 : drawReason.ordinal() + 1) << 3);
+        buf.put((byte) flags);
+        buf.put((byte) Math.min(halfmoveClock, 255));
+        buf.put((byte) (enPassantVulnerable == null ? -1 : square(enPassantVulnerable.getChessPosition().toPosition())));
+        buf.putShort((short) turn);
+    }
+    
+    /*
+    The opposite of writeState: replaces the whole match state, clearing the move history.
+    Pieces of the old state are reused where the codes match, so restoring into a long-lived
+    match allocates next to nothing.
+    */
+    void readState(ByteBuffer buf){
+        if(spare == null){
+            spare = new ChessPiece[32];
+        }
+        int spareCount = 0;
+        for(int i = 0; i < board.getRows(); i++){
+            for(int j = 0; j < board.getColumns(); j++){
+                Piece p = removePiece(Position.of(i, j));
+                if(p != null && spareCount < spare.length){
+                    spare[spareCount++] = (ChessPiece) p;
+                }
+            }
+        }
+        for(Piece p : capturedPieces){
+            if(spareCount < spare.length){
+                spare[spareCount++] = (ChessPiece) p;
+            }
+        }
+        piecesOnTheBoard.clear();
+        capturedPieces.clear();
+        moveHistory.clear();
+        redoStack.clear();
+    
+        int boardStart = buf.position();
+        int squares = board.getRows() * board.getColumns();
+        buf.position(boardStart + squares / 2);
+        int bits = 0;
+        int n = 0;
+        for(int sq = 0; sq < squares; sq++){
+            int b = buf.get(boardStart + (sq >> 1));
+            int code = ((sq & 1) == 0) ? b & 0x0F : (b >>> 4) & 0x0F;
+            if(code != PieceCode.EMPTY){
+                if((n & 7) == 0){
+                    bits = buf.get();
+                }
+                ChessPiece p = reusePiece(code, spareCount);
+                if(p == null){
+                    p = newPiece(code);
+                }
+                else{
+                    spareCount--;
+                }
+                p.setMoveCount((bits >>> (n++ & 7)) & 1);
+                placePiece(p, position(sq));
+                piecesOnTheBoard.add(p);
+            }
+        }
+        int captured = buf.get();
+        for(int i = 0; i < captured; i++){
+            if((i & 1) == 0){
+                bits = buf.get();
+            }
+            int code = ((i & 1) == 0) ? bits & 0x0F : (bits >>> 4) & 0x0F;
+            ChessPiece p = reusePiece(code, spareCount);
+            if(p == null){
+                p = newPiece(code);
+            }
+            else{
+                spareCount--;
+            }
+            p.setMoveCount(1);
+            capturedPieces.add(p);
+        }
+        Arrays.fill(spare, 0, spareCount, null);
+    
+        int flags = buf.get();
+        currentPlayer = ((flags & 1) != 0) ? Color.BLACK : Color.WHITE;
+        check = (flags & 2) != 0;
+        checkmate = (flags & 4) != 0;
+        drawReason = ((flags >>> 3) == 0) ? null : DrawReason.values()[(flags >>> 3) - 1];
+        halfmoveClock = buf.get() & 0xFF;
+        int enPassantSquare = buf.get();
+        enPassantVulnerable = (enPassantSquare < 0) ? null : (ChessPiece) board.piece(position(enPassantSquare));
+        turn = buf.getShort();
+        promoted = null;
+        lostOnTime = null;
+        hashCount = 0;
+        pushHash(getPositionHash());
+        publishSnapshot();
+    }
+    
+    /*
+    Hashes of the positions before the current one, back to the last capture or pawn move: all that
+    threefold repetition looks at. Written after writeState where a restored match has to keep finding
+    repetitions that started before it, as GameTimeline checkpoints do.
+    */
+    void writeHistory(ByteBuffer buf){
+        int count = Math.min(Math.min(halfmoveClock, 255), hashCount - 1);
+        buf.putShort((short) count);
+        for(int i = hashCount - 1 - count; i < hashCount - 1; i++){
+            buf.putLong(hashHistory[i]);
+        }
+    }
+    
+    //Follows readState, putting the earlier hashes back in front of the current position's.
+    void readHistory(ByteBuffer buf){
+        int count = buf.getShort();
+        long current = hashHistory[hashCount - 1];
+        hashCount = 0;
+        for(int i = 0; i < count; i++){
+            pushHash(buf.getLong());
+        }
+        pushHash(current);
+    }
+    
+    //Takes a spare piece with the given code out of the first count spares, null if there is none.
+    private ChessPiece reusePiece(int code, int count){
+        for(int i = 0; i < count; i++){
+            if(PieceCode.of(spare[i]) == code){
+                ChessPiece p = spare[i];
+                spare[i] = spare[count - 1];
+                spare[count - 1] = null;
+                return p;
+            }
+        }
+        return null;
+    }
+    
+    /*
+    Every change to the board goes through placePiece and removePiece, so the hash, piece counts and
+    network accumulator follow it, castling rooks, en passant and promotions included.
+    */
+    private void placePiece(Piece piece, Position position){
+        board.placePiece(piece, position);
+        int code = PieceCode.of((ChessPiece) piece);
+        pieceHash ^= Zobrist.PIECES[code * 64 + square(position)];
+        pieceCounts[code]++;
+        if(accumulator != null){
+            accumulator.add(code, square(position));
+        }
+    }
+    
+    private Piece removePiece(Position position){
+        Piece piece = board.removePiece(position);
+        if(piece != null){
+            int code = PieceCode.of((ChessPiece) piece);
+            pieceHash ^= Zobrist.PIECES[code * 64 + square(position)];
+            pieceCounts[code]--;
+            if(accumulator != null){
+                accumulator.remove(code, square(position));
+            }
+        }
+        return piece;
+    }
+    
+    private void pushHash(long hash){
+        if(hashCount == hashHistory.length){
+            hashHistory = Arrays.copyOf(hashHistory, hashCount * 2);
+        }
+        hashHistory[hashCount++] = hash;
+    }
+    
+    //Castling rights are implicit in the move counts of the king and the rook.
+    private boolean canStillCastle(int row, int kingColumn, int rookColumn){
+        ChessPiece king = (ChessPiece) board.piece(row, kingColumn);
+        ChessPiece rook = (ChessPiece) board.piece(row, rookColumn);
+        return king instanceof King && king.getMoveCount() == 0 && rook instanceof Rook && rook.getMoveCount() == 0 && rook.getColor() == king.getColor();
+    }
+    
+    //The en passant column only makes a position different if a pawn can actually take it.
+    private boolean enPassantCapturable(){
+        if(enPassantVulnerable == null){
+            return false;
+        }
+        Position pos = enPassantVulnerable.getChessPosition().toPosition();
+        for(int column = pos.getColumn() - 1; column <= pos.getColumn() + 1; column += 2){
+            if(board.positionExists(pos.getRow(), column)){
+                ChessPiece p = (ChessPiece) board.piece(pos.getRow(), column);
+                if(p instanceof Pawn && p.getColor() != enPassantVulnerable.getColor()){
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    //Works out check, checkmate and draws for the opponent of the player who made the recorded move.
+    private void updateGameEnd(MoveRecord record){
+        Color opponent = opponent(record.previousPlayer());
+        check = testCheck(opponent);
+        boolean canMove = hasAnyLegalMove(opponent);
+        checkmate = check && !canMove;
+    
+        turn = record.previousTurn();
+        currentPlayer = record.previousPlayer();
+        if(!checkmate){
+            nextTurn();
+        }
+    
+        hashHistory[hashCount - 1] = getPositionHash();
+        if(checkmate){
+            drawReason = null;
+        }
+        else if(!canMove){
+            drawReason = DrawReason.STALEMATE;
+        }
+        else{
+            drawReason = testDraw();
+        }
+    
+        record.setResult(check, checkmate, enPassantVulnerable, halfmoveClock, drawReason);
+        publishSnapshot();
+    }
+    
+    /*
+    Builds a fresh snapshot and publishes it with a single volatile write. Snapshots are never changed
+    afterwards, so readers only see a complete position. Search moves (pushMove/popMove) don't publish.
+    */
+    private void publishSnapshot(){
+        byte[] packed = new byte[32];
+        for(int sq = 0; sq < 64; sq += 2){
+            int low = PieceCode.of((ChessPiece) board.piece(position(sq)));
+            int high = PieceCode.of((ChessPiece) board.piece(position(sq + 1)));
+            packed[sq >> 1] = (byte) (low | (high << 4));
+        }
+    
+        int castling = castlingRights();
+    
+        int enPassantSquare = -1;
+        if(enPassantVulnerable != null){
+            Position pawn = enPassantVulnerable.getChessPosition().toPosition();
+            int row = (enPassantVulnerable.getColor() == Color.WHITE) ? pawn.getRow() + 1 : pawn.getRow() - 1;
+            enPassantSquare = row * 8 + pawn.getColumn();
+        }
+    
+        snapshot = new PositionSnapshot(packed, getPositionHash(), moveHistory.size(), turn, currentPlayer, check, checkmate, drawReason,
+                castling, enPassantSquare, halfmoveClock);
+    }
+    
+    //Castling rights as PositionSnapshot flags.
+    int castlingRights(){
+        return (canStillCastle(7, 4, 7) ? PositionSnapshot.WHITE_KINGSIDE : 0)
+                | (canStillCastle(7, 4, 0) ? PositionSnapshot.WHITE_QUEENSIDE : 0)
+                | (canStillCastle(0, 4, 7) ? PositionSnapshot.BLACK_KINGSIDE : 0)
+                | (canStillCastle(0, 4, 0) ? PositionSnapshot.BLACK_QUEENSIDE : 0);
+    }
+    
+    /*
+    Works out check, checkmate and draws for a position that was set up rather than played (see Fen).
+    As after a played mate, the winner stays the current player.
+    */
+    void updateStatus(){
+        check = testCheck(currentPlayer);
+        boolean canMove = hasAnyLegalMove(currentPlayer);
+        checkmate = check && !canMove;
+        if(checkmate){
+            currentPlayer = opponent(currentPlayer);
+            turn--;
+            drawReason = null;
+        }
+        else{
+            drawReason = canMove ? testDraw() : DrawReason.STALEMATE;
+        }
+        hashHistory[hashCount - 1] = getPositionHash();
+        publishSnapshot();
+    }
+    
+    private DrawReason testDraw(){
+        if(halfmoveClock >= 100){
+            return DrawReason.FIFTY_MOVE_RULE;
+        }
+        if(testThreefoldRepetition()){
+            return DrawReason.THREEFOLD_REPETITION;
+        }
+        if(testInsufficientMaterial()){
+            return DrawReason.INSUFFICIENT_MATERIAL;
+        }
+        return null;
+    }
+    
+    /*
+    A position can only repeat after the last capture or pawn move, and only with the same side to move,
+    so the scan goes back two plies at a time and stops at the halfmove clock.
+    */
+    private boolean testThreefoldRepetition(){
+        long current = hashHistory[hashCount - 1];
+        int oldest = Math.max(0, hashCount - 1 - halfmoveClock);
+        int repetitions = 1;
+    
+        for(int i = hashCount - 3; i >= oldest; i -= 2){
+            if(hashHistory[i] == current && ++repetitions == 3){
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private boolean testInsufficientMaterial(){
+        for(Color color : Color.values()){
+            if(pieceCounts[PieceCode.make(PieceCode.PAWN, color)] > 0 || pieceCounts[PieceCode.make(PieceCode.ROOK, color)] > 0
+                    || pieceCounts[PieceCode.make(PieceCode.QUEEN, color)] > 0){
+                return false;
+            }
+        }
+        int knights = pieceCounts[PieceCode.make(PieceCode.KNIGHT, Color.WHITE)] + pieceCounts[PieceCode.make(PieceCode.KNIGHT, Color.BLACK)];
+        int bishops = pieceCounts[PieceCode.make(PieceCode.BISHOP, Color.WHITE)] + pieceCounts[PieceCode.make(PieceCode.BISHOP, Color.BLACK)];
+    
+        //King against king and a single minor piece
+        if(knights + bishops <= 1){
+            return true;
+        }
+        if(knights > 0){
+            return false;
+        }
+    
+        //Only bishops left: nobody can mate if they all stand on squares of the same color.
+        int squareColors = 0;
+        for(Piece p : piecesOnTheBoard){
+            if(p instanceof Bishop){
+                Position pos = ((ChessPiece) p).getChessPosition().toPosition();
+                squareColors |= 1 << ((pos.getRow() + pos.getColumn()) % 2);
+            }
+        }
+        return squareColors != 3;
+    }
+    
+    private int square(Position position){
+        return board.square(position);
+    }
+    
+    private Position position(int square){
+        return board.position(square);
+    }
+    
     private Piece makeMove(Position source, Position target){
         /*Take the piece from the board.
           In case there is a piece on the target position, it'll be taken,
           then I place mine there.
         */
-        ChessPiece p = (ChessPiece) board.removePiece(source);
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        ChessPiece p = (ChessPiece) removePiece(source);
         p.increaseMoveCount();
         
-        Piece capturedPiece = board.removePiece(target);
-        board.placePiece(p, target);
+        Piece capturedPiece = removePiece(target);
+        placePiece(p, target);
         
         if(capturedPiece != null){
             piecesOnTheBoard.remove(capturedPiece);
@@ -168,21 +1024,21 @@ public class ChessMatch {
         
         //#Special move castling kingside rook
         if(p instanceof King && target.getColumn() == source.getColumn() + 2){
-            Position sourceT1 = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT1 = new Position(source.getRow(), source.getColumn() + 1);
+            Position sourceT1 = Position.of(source.getRow(), source.getColumn() + 3);
+            Position targetT1 = Position.of(source.getRow(), source.getColumn() + 1);
             
-            ChessPiece rook = (ChessPiece)board.removePiece(sourceT1);
-            board.placePiece(rook, targetT1);
+            ChessPiece rook = (ChessPiece)removePiece(sourceT1);
+            placePiece(rook, targetT1);
             rook.increaseMoveCount();
         }
         
         //#Special move castling queenside rook
         if(p instanceof King && target.getColumn() == source.getColumn() - 2){
-            Position sourceT2 = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT2 = new Position(source.getRow(), source.getColumn() - 1);
+            Position sourceT2 = Position.of(source.getRow(), source.getColumn() - 4);
+            Position targetT2 = Position.of(source.getRow(), source.getColumn() - 1);
             
-            ChessPiece rook = (ChessPiece)board.removePiece(sourceT2);
-            board.placePiece(rook, targetT2);
+            ChessPiece rook = (ChessPiece)removePiece(sourceT2);
+            placePiece(rook, targetT2);
             rook.increaseMoveCount();
         }
         
@@ -192,49 +1048,53 @@ public class ChessMatch {
             if(source.getColumn() != target.getColumn() && capturedPiece == null){
                 Position pawnPosition;
                 if(p.getColor() == Color.WHITE){
-                    pawnPosition = new Position(target.getRow() + 1, target.getColumn());
+                    pawnPosition = Position.of(target.getRow() + 1, target.getColumn());
                 }
                 else{
-                    pawnPosition = new Position(target.getRow() - 1, target.getColumn());
+                    pawnPosition = Position.of(target.getRow() - 1, target.getColumn());
                 }
-                capturedPiece = board.removePiece(pawnPosition);
+                capturedPiece = removePiece(pawnPosition);
                 capturedPieces.add(capturedPiece);
                 piecesOnTheBoard.remove(capturedPiece);
             }
         }
+        if(Metrics.ENABLED){
+            Metrics.MAKE_MOVE.record(System.nanoTime() - start);
+        }
         return capturedPiece;
     }
     
     //The opposite logic of the method makeMove.
     private void undoMove(Position source, Position target, Piece capturedPiece){
-        ChessPiece p = (ChessPiece) board.removePiece(target);
+        long start = Metrics.ENABLED ? System.nanoTime() : 0L;
+        ChessPiece p = (ChessPiece) removePiece(target);
         p.decreaseMoveCount();
         
-        board.placePiece(p, source);
+        placePiece(p, source);
         
         if(capturedPiece != null){
-            board.placePiece(capturedPiece, target);
+            placePiece(capturedPiece, target);
             capturedPieces.remove(capturedPiece);
             piecesOnTheBoard.add(capturedPiece);
         }
         
         //#Special move castling kingside rook --> UNDO MOVEMENT
         if(p instanceof King && target.getColumn() == source.getColumn() + 2){
-            Position sourceT1 = new Position(source.getRow(), source.getColumn() + 3);
-            Position targetT1 = new Position(source.getRow(), source.getColumn() + 1);
+            Position sourceT1 = Position.of(source.getRow(), source.getColumn() + 3);
+            Position targetT1 = Position.of(source.getRow(), source.getColumn() + 1);
             
-            ChessPiece rook = (ChessPiece)board.removePiece(targetT1);
-            board.placePiece(rook, sourceT1);
+            ChessPiece rook = (ChessPiece)removePiece(targetT1);
+            placePiece(rook, sourceT1);
             rook.decreaseMoveCount();
         }
         
         //#Special move castling queenside rook --> UNDO MOVEMENT
         if(p instanceof King && target.getColumn() == source.getColumn() - 2){
-            Position sourceT2 = new Position(source.getRow(), source.getColumn() - 4);
-            Position targetT2 = new Position(source.getRow(), source.getColumn() - 1);
+            Position sourceT2 = Position.of(source.getRow(), source.getColumn() - 4);
+            Position targetT2 = Position.of(source.getRow(), source.getColumn() - 1);
             
-            ChessPiece rook = (ChessPiece)board.removePiece(targetT2);
-            board.placePiece(rook, sourceT2);
+            ChessPiece rook = (ChessPiece)removePiece(targetT2);
+            placePiece(rook, sourceT2);
             rook.decreaseMoveCount();
         }
         
@@ -242,17 +1102,20 @@ public class ChessMatch {
         if(p instanceof Pawn){
             //if the pawn moved diagonal but got any piece it means that he did an En Passant
             if(source.getColumn() != target.getColumn() && capturedPiece == enPassantVulnerable){
-                ChessPiece pawn = (ChessPiece)board.removePiece(target);
+                ChessPiece pawn = (ChessPiece)removePiece(target);
                 Position pawnPosition;
                 if(p.getColor() == Color.WHITE){
-                    pawnPosition = new Position(3, target.getColumn());
+                    pawnPosition = Position.of(3, target.getColumn());
                 }
                 else{
-                    pawnPosition = new Position(4, target.getColumn());
+                    pawnPosition = Position.of(4, target.getColumn());
                 }
-                board.placePiece(pawn, pawnPosition);
+                placePiece(pawn, pawnPosition);
             }
         }
+        if(Metrics.ENABLED){
+            Metrics.UNDO_MOVE.record(System.nanoTime() - start);
+        }
     }
     
     private void validateSourcePosition(Position position){
@@ -295,7 +1158,55 @@ public class ChessMatch {
         throw new IllegalStateException("There is no " + color + " king in the board.");
     }
     
+    private boolean[][] pieceMoves(Piece piece){
+        boolean recording = MoveGenerationEvent.enabled();
+        if(!Metrics.ENABLED && !recording){
+            return piece.possibleMoves();
+        }
+        MoveGenerationEvent event = recording ? new MoveGenerationEvent() : null;
+        if(recording){
+            event.begin();
+        }
+        long start = System.nanoTime();
+        boolean[][] mat = piece.possibleMoves();
+        if(Metrics.ENABLED){
+            Metrics.MOVE_GENERATION.record(System.nanoTime() - start);
+        }
+        if(recording){
+            event.end();
+            if(event.shouldCommit()){
+                event.piece = piece.toString();
+                event.square = String.valueOf(((ChessPiece) piece).getChessPosition());
+                event.moves = countMoves(mat);
+                event.commit();
+            }
+        }
+        return mat;
+    }
+    
+    private static int countMoves(boolean[][] mat){
+        int count = 0;
+        for(boolean[] row : mat){
+            for(boolean move : row){
+                if(move){
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
     private boolean testCheck(Color color){
+        if(!Metrics.ENABLED){
+            return isKingAttacked(color);
+        }
+        long start = System.nanoTime();
+        boolean attacked = isKingAttacked(color);
+        Metrics.TEST_CHECK.record(System.nanoTime() - start);
+        return attacked;
+    }
+    
+    private boolean isKingAttacked(Color color){
         Position kingPosition = king(color).getChessPosition().toPosition(); //gets the king position in matrix type
         List<Piece> opponentPieces = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == opponent(color)).collect(Collectors.toList());
         
@@ -304,7 +1215,7 @@ public class ChessMatch {
             By getting all possible moves of this piece "p", I can see if the king is in check 
             if the king's value in the matrix is equals to true.
             */
-            boolean[][] mat = p.possibleMoves();
+            boolean[][] mat = pieceMoves(p);
             
             if(mat[kingPosition.getRow()][kingPosition.getColumn()]){
                 return true;
@@ -313,43 +1224,90 @@ public class ChessMatch {
         return false;
     }
     
-    private boolean testCheckMate(Color color){
-        if(!testCheck(color)){
-            return false;
+    /*
+    Stops at the first legal move found instead of trying every move of every piece.
+    The king goes first and captures are tried before quiet moves, since those are the
+    moves most likely to get out of trouble.
+    */
+    private boolean hasAnyLegalMove(Color color){
+        boolean recording = LegalMoveSearchEvent.enabled();
+        if(!Metrics.ENABLED && !recording){
+            return findLegalMove(color);
         }
-        //get all the pieces according to the given color in the parameter
-        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color).collect(Collectors.toList());
+        LegalMoveSearchEvent event = recording ? new LegalMoveSearchEvent() : null;
+        if(recording){
+            trialMoves = 0;
+            event.begin();
+        }
+        long start = System.nanoTime();
+        boolean found = findLegalMove(color);
+        if(Metrics.ENABLED){
+            Metrics.ANY_LEGAL_MOVE.record(System.nanoTime() - start);
+        }
+        if(recording){
+            event.end();
+            if(event.shouldCommit()){
+                event.color = color.toString();
+                event.inCheck = check;
+                event.trialMoves = trialMoves;
+                event.found = found;
+                event.pieceHash = pieceHash;
+                event.commit();
+            }
+        }
+        return found;
+    }
         
-        /*
-        The main idea is: if there is a movement that the king can do in order to escape from check, it means that
-        this isn't checkmate, but if there is no movement allowing that, so he got checkmated
-        */
-        for(Piece p : list){
-            boolean[][] mat = p.possibleMoves();
+    private boolean findLegalMove(Color color){
+        ChessPiece king = king(color);
+        boolean[][] kingMoves = pieceMoves(king);
+        if(testLegalMove(king, kingMoves, true) || testLegalMove(king, kingMoves, false)){
+            return true;
+        }
            
-            for(int i = 0; i < board.getRows(); i++){
-                for(int j = 0; j < board.getColumns(); j++){
-                    if(mat[i][j]){
-                        Position source = ((ChessPiece)p).getChessPosition().toPosition();
-                        Position target = new Position(i, j);
-                        Piece capturedPiece = makeMove(source, target);
+        List<Piece> list = piecesOnTheBoard.stream().filter(x -> ((ChessPiece)x).getColor() == color && x != king).collect(Collectors.toList());
+        boolean[][][] moves = new boolean[list.size()][][];
                         
-                        boolean testCheck = testCheck(color);
+        for(int k = 0; k < list.size(); k++){
+            moves[k] = pieceMoves(list.get(k));
+            if(testLegalMove((ChessPiece) list.get(k), moves[k], true)){
+                return true;
+            }
+        }
+        for(int k = 0; k < list.size(); k++){
+            if(testLegalMove((ChessPiece) list.get(k), moves[k], false)){
+                return true;
+            }
+        }
+        return false;
+    }
                         
-                        undoMove(source, target, capturedPiece);
+    //Tries the captures or the quiet moves of the matrix, until one doesn't leave the king in check.
+    private boolean testLegalMove(ChessPiece p, boolean[][] mat, boolean captures){
+        Position source = p.getChessPosition().toPosition();
                         
-                        if(!testCheck){
-                            return false;
-                        }
+        for(int i = 0; i < board.getRows(); i++){
+            for(int j = 0; j < board.getColumns(); j++){
+                if(mat[i][j] && (board.piece(i, j) != null) == captures){
+                    Position target = Position.of(i, j);
+                    Piece capturedPiece = makeMove(source, target);
+                    trialMoves++;
+    
+                    boolean testCheck = testCheck(p.getColor());
+    
+                    undoMove(source, target, capturedPiece);
+    
+                    if(!testCheck){
+                        return true;
                     }
                 }
             }
         }
-        return true;
+        return false;
     }   
     
     private void placeNewPiece(char column, int row, ChessPiece piece){
-        board.placePiece(piece, new ChessPosition(column, row).toPosition());
+        placePiece(piece, ChessPosition.of(column, row).toPosition());
         
         //add all instantiated pieces to the list
         piecesOnTheBoard.add(piece);
@@ -29,6 +29,10 @@ public abstract class ChessPiece extends Piece{
         moveCount--;
     }
     
+    void setMoveCount(int moveCount){
+        this.moveCount = moveCount;
+    }
+    
     public ChessPosition getChessPosition(){
         return ChessPosition.fromPosition(position);
     }
@@ -2,9 +2,20 @@ package chess;
 
 import board.Position;
 
+/*
+Immutable. ChessPosition.of returns one shared instance per square instead of a new object.
+*/
 public class ChessPosition {
-    private char column;
-    private int row;
+    private static final ChessPosition[] SQUARES = new ChessPosition[64]; //Indexed like Moves: a8 is 0, h1 is 63
+    
+    static{
+        for(int square = 0; square < SQUARES.length; square++){
+            SQUARES[square] = new ChessPosition((char) ('a' + square % 8), 8 - square / 8);
+        }
+    }
+    
+    private final char column;
+    private final int row;
     
     public ChessPosition(char column, int row){
         if(column < 'a' || column > 'h' || row < 1 || row > 8){
@@ -15,6 +26,20 @@ public class ChessPosition {
         this.row = row;
     }
     
+    public static ChessPosition of(char column, int row){
+        if(column < 'a' || column > 'h' || row < 1 || row > 8){
+            return new ChessPosition(column, row); //Throws
+        }
+        return SQUARES[(8 - row) * 8 + (column - 'a')];
+    }
+    
+    public static ChessPosition of(int square){
+        if(square < 0 || square >= SQUARES.length){
+            throw new ChessException("Error instatianting ChessPosition. Valid values are from a1 to h8.");
+        }
+        return SQUARES[square];
+    }
+    
     public char getColumn(){
         return column;
     }
@@ -24,11 +49,28 @@ public class ChessPosition {
     }
     
     protected Position toPosition(){
-        return new Position(8 - row, column - 'a');
+        return Position.of(8 - row, column - 'a');
     }
     
     protected static ChessPosition fromPosition(Position position){
-        return new ChessPosition((char)('a' + position.getColumn()), 8 - position.getRow()) ; 
+        return of((char)('a' + position.getColumn()), 8 - position.getRow());
+    }
+    
+    @Override
+    public boolean equals(Object obj){
+        if(this == obj){
+            return true;
+        }
+        if(!(obj instanceof ChessPosition)){
+            return false;
+        }
+        ChessPosition other = (ChessPosition) obj;
+        return column == other.column && row == other.row;
+    }
+    
+    @Override
+    public int hashCode(){
+        return column * 31 + row;
     }
     
     @Override
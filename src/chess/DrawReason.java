@@ -0,0 +1,8 @@
+package chess;
+
+public enum DrawReason {
+    THREEFOLD_REPETITION,
+    FIFTY_MOVE_RULE,
+    INSUFFICIENT_MATERIAL,
+    STALEMATE;
+}
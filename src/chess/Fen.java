@@ -0,0 +1,228 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/*
+Forsyth-Edwards Notation, the one-line position format used by UCI, PGN headers and position files.
+Loading goes through the same state format as checkpoints, so it replaces the whole match and
+clears its history. A FEN doesn't say which pieces were captured, so they are worked out from
+what is missing on the board.
+*/
+public final class Fen {
+    public static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    
+    private static final int[] INITIAL_COUNT = {0, 8, 2, 2, 2, 1, 1}; //Indexed by piece type
+    
+    private Fen(){
+    }
+    
+    public static ChessMatch parse(String fen){
+        ChessMatch match = new ChessMatch();
+        load(fen, match);
+        return match;
+    }
+    
+    public static void load(String fen, ChessMatch match){
+        String[] fields = fen.trim().split("\\s+");
+        if(fields.length < 4){
+            throw new ChessException("Invalid FEN, expected at least 4 fields: " + fen);
+        }
+    
+        int[] codes = new int[64];
+        int square = 0;
+        for(int i = 0; i < fields[0].length(); i++){
+            char c = fields[0].charAt(i);
+            if(c == '/'){
+                if(square % 8 != 0){
+                    throw new ChessException("Invalid FEN, rank " + (8 - square / 8) + " is incomplete: " + fen);
+                }
+            }
+            else if(c >= '1' && c <= '8'){
+                square += c - '0';
+            }
+            else if(square < 64){
+                codes[square++] = PieceCode.fromLetter(c);
+            }
+            else{
+                square++;
+            }
+            if(square > 64){
+                throw new ChessException("Invalid FEN, too many squares: " + fen);
+            }
+        }
+        if(square != 64){
+            throw new ChessException("Invalid FEN, too few squares: " + fen);
+        }
+    
+        int[] counts = new int[16];
+        for(int code : codes){
+            counts[code]++;
+        }
+        if(counts[PieceCode.KING] != 1 || counts[PieceCode.KING | PieceCode.BLACK] != 1){
+            throw new ChessException("Invalid FEN, each side needs exactly one king: " + fen);
+        }
+    
+        boolean black;
+        if(fields[1].equals("w")){
+            black = false;
+        }
+        else if(fields[1].equals("b")){
+            black = true;
+        }
+        else{
+            throw new ChessException("Invalid FEN, side to move must be w or b: " + fen);
+        }
+    
+        String castling = fields[2];
+        int halfmoveClock = (fields.length > 4) ? parseNumber(fields[4], fen) : 0;
+        int fullmove = (fields.length > 5) ? Math.max(1, parseNumber(fields[5], fen)) : 1;
+    
+        ByteBuffer buf = ByteBuffer.allocate(ChessMatch.STATE_CAPACITY);
+        for(int sq = 0; sq < 64; sq += 2){
+            buf.put((byte) (codes[sq] | (codes[sq + 1] << 4)));
+        }
+    
+        //Only "has it moved" is kept, and it only matters for kings, rooks and pawns.
+        int bits = 0;
+        int n = 0;
+        for(int sq = 0; sq < 64; sq++){
+            if(codes[sq] != PieceCode.EMPTY){
+                bits |= (hasMoved(codes[sq], sq, castling) ? 1 : 0) << (n & 7);
+                if((++n & 7) == 0){
+                    buf.put((byte) bits);
+                    bits = 0;
+                }
+            }
+        }
+        if((n & 7) != 0){
+            buf.put((byte) bits);
+        }
+    
+        int[] captured = new int[32];
+        int capturedCount = 0;
+        for(int color = 0; color <= PieceCode.BLACK; color += PieceCode.BLACK){
+            int promoted = 0;
+            for(int type = PieceCode.KNIGHT; type <= PieceCode.QUEEN; type++){
+                promoted += Math.max(0, counts[type | color] - INITIAL_COUNT[type]);
+            }
+            for(int type = PieceCode.PAWN; type <= PieceCode.QUEEN; type++){
+                int present = counts[type | color] + ((type == PieceCode.PAWN) ? promoted : 0);
+                for(int k = present; k < INITIAL_COUNT[type] && capturedCount < captured.length; k++){
+                    captured[capturedCount++] = type | color;
+                }
+            }
+        }
+        buf.put((byte) capturedCount);
+        for(int i = 0; i < capturedCount; i += 2){
+            buf.put((byte) (captured[i] | (captured[i + 1] << 4)));
+        }
+    
+        buf.put((byte) (black ? 1 : 0)); //Check, checkmate and draws are worked out once the pieces are in place
+        buf.put((byte) Math.min(halfmoveClock, 255));
+        buf.put((byte) enPassantPawn(fields[3], codes, black));
+        buf.putShort((short) (2 * (fullmove - 1) + (black ? 2 : 1)));
+        buf.flip();
+    
+        match.readState(buf);
+        match.updateStatus();
+    }
+    
+    public static String of(ChessMatch match){
+        StringBuilder sb = new StringBuilder(90);
+        for(int row = 0; row < 8; row++){
+            int empty = 0;
+            for(int column = 0; column < 8; column++){
+                int code = match.pieceAt(row * 8 + column);
+                if(code == PieceCode.EMPTY){
+                    empty++;
+                    continue;
+                }
+                if(empty > 0){
+                    sb.append(empty);
+                    empty = 0;
+                }
+                sb.append(PieceCode.letter(code));
+            }
+            if(empty > 0){
+                sb.append(empty);
+            }
+            if(row < 7){
+                sb.append('/');
+            }
+        }
+    
+        //After checkmate the match keeps the winner as the current player, but the loser is the one to move.
+        Color toMove = match.getCheckmate() ? opponent(match.getCurrentPlayer()) : match.getCurrentPlayer();
+        sb.append(toMove == Color.WHITE ? " w " : " b ");
+    
+        int rights = match.castlingRights();
+        if(rights == 0){
+            sb.append('-');
+        }
+        if((rights & PositionSnapshot.WHITE_KINGSIDE) != 0) sb.append('K');
+        if((rights & PositionSnapshot.WHITE_QUEENSIDE) != 0) sb.append('Q');
+        if((rights & PositionSnapshot.BLACK_KINGSIDE) != 0) sb.append('k');
+        if((rights & PositionSnapshot.BLACK_QUEENSIDE) != 0) sb.append('q');
+    
+        ChessPiece vulnerable = match.getEnPassantVulnerable();
+        if(vulnerable == null){
+            sb.append(" -");
+        }
+        else{
+            ChessPosition pawn = vulnerable.getChessPosition();
+            int behind = (vulnerable.getColor() == Color.WHITE) ? pawn.getRow() - 1 : pawn.getRow() + 1;
+            sb.append(' ').append(pawn.getColumn()).append(behind);
+        }
+    
+        int plies = match.getCheckmate() ? match.getTurn() : match.getTurn() - 1; //The turn doesn't advance on checkmate
+        sb.append(' ').append(match.getHalfmoveClock()).append(' ').append(plies / 2 + 1);
+        return sb.toString();
+    }
+    
+    private static boolean hasMoved(int code, int square, String castling){
+        boolean black = PieceCode.color(code) == Color.BLACK;
+        switch(PieceCode.type(code)){
+            case PieceCode.PAWN:
+                return square / 8 != (black ? 1 : 6);
+            case PieceCode.KING:
+                return square != (black ? 4 : 60) || !(castling.indexOf(black ? 'k' : 'K') >= 0 || castling.indexOf(black ? 'q' : 'Q') >= 0);
+            case PieceCode.ROOK:
+                if(square == (black ? 7 : 63)){
+                    return castling.indexOf(black ? 'k' : 'K') < 0;
+                }
+                if(square == (black ? 0 : 56)){
+                    return castling.indexOf(black ? 'q' : 'Q') < 0;
+                }
+                return true;
+            default:
+                return true;
+        }
+    }
+    
+    //Square of the pawn that can be taken en passant, -1 if none. FEN gives the square behind it.
+    private static int enPassantPawn(String field, int[] codes, boolean blackToMove){
+        if(field.equals("-")){
+            return -1;
+        }
+        if(field.length() != 2 || field.charAt(0) < 'a' || field.charAt(0) > 'h' || (field.charAt(1) != '3' && field.charAt(1) != '6')){
+            throw new ChessException("Invalid FEN en passant square: " + field);
+        }
+        int column = field.charAt(0) - 'a';
+        int row = blackToMove ? 4 : 3; //The pawn that just made a double step
+        int pawn = blackToMove ? PieceCode.PAWN : PieceCode.PAWN | PieceCode.BLACK;
+        return (codes[row * 8 + column] == pawn) ? row * 8 + column : -1;
+    }
+    
+    private static int parseNumber(String field, String fen){
+        try{
+            return Integer.parseInt(field);
+        }
+        catch(NumberFormatException e){
+            throw new ChessException("Invalid FEN move number: " + fen);
+        }
+    }
+    
+    private static Color opponent(Color color){
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
@@ -0,0 +1,109 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Move list of a game plus a compact checkpoint of the match every "checkpointInterval" plies.
+Seeking to any ply restores the nearest checkpoint at or before it and replays at most
+checkpointInterval - 1 moves, so a bigger interval saves memory and a smaller one saves time.
+Checkpoints carry the position hashes since the last capture or pawn move, so the replayed moves
+still find repetitions that started before the checkpoint.
+*/
+public class GameTimeline {
+    private final int checkpointInterval;
+    private final ChessMatch head = new ChessMatch(); //Match at the last ply, used to validate new moves
+    private final ByteBuffer buffer = ByteBuffer.allocate(ChessMatch.STATE_CAPACITY + ChessMatch.HISTORY_CAPACITY);
+    private final List<byte[]> checkpoints = new ArrayList<>(); //checkpoints.get(i) is the state at ply i * checkpointInterval
+    
+    //Packed as described in Moves
+    private int[] moves = new int[64];
+    private int size;
+    
+    public GameTimeline(int checkpointInterval){
+        if(checkpointInterval < 1){
+            throw new IllegalArgumentException("The checkpoint interval must be at least 1.");
+        }
+        this.checkpointInterval = checkpointInterval;
+        checkpoints.add(checkpoint());
+    }
+    
+    public int getCheckpointInterval(){
+        return checkpointInterval;
+    }
+    
+    public synchronized int size(){
+        return size;
+    }
+    
+    public synchronized ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition){
+        ChessPiece capturedPiece = head.performChessMove(sourcePosition, targetPosition);
+    
+        if(size == moves.length){
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        int promotion = (head.getPromoted() != null) ? PieceCode.typeOf(head.getPromoted()) : PieceCode.EMPTY;
+        moves[size++] = Moves.pack(Moves.square(sourcePosition), Moves.square(targetPosition), promotion);
+    
+        if(size % checkpointInterval == 0){
+            checkpoints.add(checkpoint());
+        }
+        return capturedPiece;
+    }
+    
+    public synchronized ChessPiece replacePromotedPiece(String type){
+        ChessPiece newPiece = head.replacePromotedPiece(type);
+    
+        int last = moves[size - 1] & 0xFFF;
+        moves[size - 1] = last | (PieceCode.typeOf(newPiece) << 12);
+    
+        //The checkpoint taken right after this move has to show the final choice.
+        if(size % checkpointInterval == 0){
+            checkpoints.set(checkpoints.size() - 1, checkpoint());
+        }
+        return newPiece;
+    }
+    
+    public ChessMatch seek(int ply){
+        ChessMatch match = new ChessMatch();
+        seek(ply, match);
+        return match;
+    }
+    
+    //Puts the given match at the requested ply. The match is reused, so a viewer can keep one instance.
+    public void seek(int ply, ChessMatch match){
+        byte[] checkpoint;
+        int[] pending;
+        synchronized(this){
+            if(ply < 0 || ply > size){
+                throw new ChessException("There is no ply " + ply + " in this game.");
+            }
+            int index = ply / checkpointInterval;
+            checkpoint = checkpoints.get(index);
+            pending = Arrays.copyOfRange(moves, index * checkpointInterval, ply);
+        }
+    
+        ByteBuffer state = ByteBuffer.wrap(checkpoint);
+        match.readState(state);
+        match.readHistory(state);
+        for(int move : pending){
+            match.performChessMove(Moves.chessPosition(Moves.source(move)), Moves.chessPosition(Moves.target(move)));
+            int promotion = Moves.promotion(move);
+            if(promotion != PieceCode.EMPTY && promotion != PieceCode.QUEEN){
+                match.replacePromotedPiece(String.valueOf(PieceCode.letter(promotion)));
+            }
+        }
+    }
+    
+    private byte[] checkpoint(){
+        buffer.clear();
+        head.writeState(buffer);
+        head.writeHistory(buffer);
+        buffer.flip();
+        byte[] state = new byte[buffer.remaining()];
+        buffer.get(state);
+        return state;
+    }
+}
@@ -0,0 +1,75 @@
+package chess;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/*
+Parked form of a match nobody is playing right now: the position before its first move as a
+MatchCodec snapshot, plus every move (and every move that can be redone) packed into a short.
+A few hundred bytes instead of the pieces, board, records and lists of a live ChessMatch.
+toMatch() replays the moves, so undo, redo and repetition draws work as if it had never been parked.
+*/
+public final class IdleMatch {
+    private final byte[] base;
+    private final short[] moves; //History first, then the redo stack from the next move to redo on
+    private final int historySize;
+    
+    private IdleMatch(byte[] base, short[] moves, int historySize){
+        this.base = base;
+        this.moves = moves;
+        this.historySize = historySize;
+    }
+    
+    /*
+    Takes every move back to reach the base position, then redoes them, so the match is
+    left as it was. Like any other use of a ChessMatch, it must run on the match's own thread.
+    */
+    public static IdleMatch of(ChessMatch match){
+        List<MoveRecord> history = match.getMoveHistory();
+        int historySize = history.size();
+    
+        int redoSize = 0;
+        while(match.canRedo()){
+            match.redoMove();
+            redoSize++;
+        }
+        short[] moves = new short[historySize + redoSize];
+        for(int i = 0; i < moves.length; i++){
+            moves[i] = (short) pack(history.get(i));
+        }
+    
+        for(int i = 0; i < moves.length; i++){
+            match.undoLastMove();
+        }
+        byte[] base = MatchCodec.encode(match);
+        for(int i = 0; i < historySize; i++){
+            match.redoMove();
+        }
+        return new IdleMatch(base, moves, historySize);
+    }
+    
+    public int getHistorySize(){
+        return historySize;
+    }
+    
+    public ChessMatch toMatch(){
+        ChessMatch match = MatchCodec.decode(ByteBuffer.wrap(base));
+        for(short move : moves){
+            match.performChessMove(Moves.chessPosition(Moves.source(move)), Moves.chessPosition(Moves.target(move)));
+            int promotion = Moves.promotion(move);
+            if(promotion != PieceCode.EMPTY && promotion != PieceCode.QUEEN){
+                match.replacePromotedPiece(String.valueOf(PieceCode.letter(promotion)));
+            }
+        }
+        for(int i = historySize; i < moves.length; i++){
+            match.undoLastMove();
+        }
+        return match;
+    }
+    
+    //Moves.pack fits in 15 bits: two squares and a piece type.
+    private static int pack(MoveRecord record){
+        int promotion = (record.getPromotedPiece() != null) ? PieceCode.typeOf(record.getPromotedPiece()) : PieceCode.EMPTY;
+        return Moves.pack(Moves.square(record.getSource()), Moves.square(record.getTarget()), promotion);
+    }
+}
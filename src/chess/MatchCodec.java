@@ -0,0 +1,51 @@
+package chess;
+
+import java.nio.ByteBuffer;
+
+/*
+Hand-written binary snapshot of a ChessMatch, for saving, loading and moving live matches between
+processes: a version byte followed by the match state (board, side to move, turn, which pieces have
+moved, en passant, check flags and captured pieces). At most MAX_SIZE bytes, 43 for a new game.
+The move history is not included, a decoded match starts a fresh one.
+*/
+public final class MatchCodec {
+    public static final int VERSION = 1;
+    public static final int MAX_SIZE = 1 + ChessMatch.STATE_CAPACITY;
+    
+    private MatchCodec(){
+    }
+    
+    //Writes the snapshot at the buffer's position, which needs MAX_SIZE bytes left.
+    public static void encode(ChessMatch match, ByteBuffer buf){
+        buf.put((byte) VERSION);
+        match.writeState(buf);
+    }
+    
+    public static byte[] encode(ChessMatch match){
+        ByteBuffer buf = ByteBuffer.allocate(MAX_SIZE);
+        encode(match, buf);
+        byte[] data = new byte[buf.position()];
+        buf.flip();
+        buf.get(data);
+        return data;
+    }
+    
+    public static ChessMatch decode(ByteBuffer buf){
+        ChessMatch match = new ChessMatch();
+        decode(buf, match);
+        return match;
+    }
+    
+    public static ChessMatch decode(byte[] data){
+        return decode(ByteBuffer.wrap(data));
+    }
+    
+    //Replaces the state of an existing match. Its pieces are reused, so a warm match decodes without allocating pieces.
+    public static void decode(ByteBuffer buf, ChessMatch match){
+        int version = buf.get();
+        if(version != VERSION){
+            throw new IllegalArgumentException("Unsupported snapshot version " + version);
+        }
+        match.readState(buf);
+    }
+}
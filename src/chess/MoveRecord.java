@@ -0,0 +1,146 @@
+package chess;
+
+import board.Position;
+
+/*
+Compact undo record of one committed move. It keeps everything the match needs to step
+backward (previous flags) and forward again (resulting flags) without replaying the game.
+*/
+public class MoveRecord {
+    private final Position source;
+    private final Position target;
+    private final ChessPiece movedPiece;
+    private final ChessPiece capturedPiece;
+    
+    //State before the move
+    private final int previousTurn;
+    private final Color previousPlayer;
+    private final boolean previousCheck;
+    private final boolean previousCheckmate;
+    private final ChessPiece previousEnPassantVulnerable;
+    private final ChessPiece previousPromoted;
+    private final int previousHalfmoveClock;
+    private final DrawReason previousDrawReason;
+    
+    //State after the move
+    private ChessPiece promotedPiece; //piece that replaced the pawn, null if there was no promotion
+    private boolean check;
+    private boolean checkmate;
+    private ChessPiece enPassantVulnerable;
+    private int halfmoveClock;
+    private DrawReason drawReason;
+    
+    MoveRecord(Position source, Position target, ChessPiece movedPiece, ChessPiece capturedPiece, int previousTurn, Color previousPlayer,
+            boolean previousCheck, boolean previousCheckmate, ChessPiece previousEnPassantVulnerable, ChessPiece previousPromoted,
+            int previousHalfmoveClock, DrawReason previousDrawReason){
+        this.source = source;
+        this.target = target;
+        this.movedPiece = movedPiece;
+        this.capturedPiece = capturedPiece;
+        this.previousTurn = previousTurn;
+        this.previousPlayer = previousPlayer;
+        this.previousCheck = previousCheck;
+        this.previousCheckmate = previousCheckmate;
+        this.previousEnPassantVulnerable = previousEnPassantVulnerable;
+        this.previousPromoted = previousPromoted;
+        this.previousHalfmoveClock = previousHalfmoveClock;
+        this.previousDrawReason = previousDrawReason;
+    }
+    
+    public ChessPosition getSource(){
+        return ChessPosition.fromPosition(source);
+    }
+    
+    public ChessPosition getTarget(){
+        return ChessPosition.fromPosition(target);
+    }
+    
+    public ChessPiece getMovedPiece(){
+        return movedPiece;
+    }
+    
+    public ChessPiece getCapturedPiece(){
+        return capturedPiece;
+    }
+    
+    public ChessPiece getPromotedPiece(){
+        return promotedPiece;
+    }
+    
+    public boolean getCheck(){
+        return check;
+    }
+    
+    public boolean getCheckmate(){
+        return checkmate;
+    }
+    
+    public int getHalfmoveClock(){
+        return halfmoveClock;
+    }
+    
+    public DrawReason getDrawReason(){
+        return drawReason;
+    }
+    
+    Position source(){
+        return source;
+    }
+    
+    Position target(){
+        return target;
+    }
+    
+    int previousTurn(){
+        return previousTurn;
+    }
+    
+    Color previousPlayer(){
+        return previousPlayer;
+    }
+    
+    boolean previousCheck(){
+        return previousCheck;
+    }
+    
+    boolean previousCheckmate(){
+        return previousCheckmate;
+    }
+    
+    ChessPiece previousEnPassantVulnerable(){
+        return previousEnPassantVulnerable;
+    }
+    
+    ChessPiece previousPromoted(){
+        return previousPromoted;
+    }
+    
+    int previousHalfmoveClock(){
+        return previousHalfmoveClock;
+    }
+    
+    DrawReason previousDrawReason(){
+        return previousDrawReason;
+    }
+    
+    ChessPiece enPassantVulnerable(){
+        return enPassantVulnerable;
+    }
+    
+    void setPromotedPiece(ChessPiece promotedPiece){
+        this.promotedPiece = promotedPiece;
+    }
+    
+    void setResult(boolean check, boolean checkmate, ChessPiece enPassantVulnerable, int halfmoveClock, DrawReason drawReason){
+        this.check = check;
+        this.checkmate = checkmate;
+        this.enPassantVulnerable = enPassantVulnerable;
+        this.halfmoveClock = halfmoveClock;
+        this.drawReason = drawReason;
+    }
+    
+    @Override
+    public String toString(){
+        return "" + getSource() + getTarget() + (promotedPiece != null ? promotedPiece.toString().toLowerCase() : "");
+    }
+}
@@ -0,0 +1,61 @@
+package chess;
+
+/*
+Moves packed in an int, for code that handles many of them (history, search, storage):
+source square | target square << 6 | promotion piece type << 12.
+Squares are numbered row * 8 + column, so a8 is 0 and h1 is 63.
+*/
+public final class Moves {
+    public static final int NONE = 0; //a8a8, never a real move
+    
+    private Moves(){
+    }
+    
+    public static int pack(int source, int target, int promotion){
+        return source | (target << 6) | (promotion << 12);
+    }
+    
+    public static int source(int move){
+        return move & 0x3F;
+    }
+    
+    public static int target(int move){
+        return (move >>> 6) & 0x3F;
+    }
+    
+    //Piece type from PieceCode, EMPTY when the move isn't a promotion.
+    public static int promotion(int move){
+        return move >>> 12;
+    }
+    
+    public static int square(ChessPosition chessPosition){
+        return (8 - chessPosition.getRow()) * 8 + (chessPosition.getColumn() - 'a');
+    }
+    
+    public static ChessPosition chessPosition(int square){
+        return ChessPosition.of(square);
+    }
+    
+    public static String squareName(int square){
+        return "" + (char) ('a' + square % 8) + (8 - square / 8);
+    }
+    
+    //Long algebraic notation, e.g. e2e4 or e7e8q.
+    public static String toString(int move){
+        String s = squareName(source(move)) + squareName(target(move));
+        if(promotion(move) != PieceCode.EMPTY){
+            s += Character.toLowerCase(PieceCode.letter(promotion(move)));
+        }
+        return s;
+    }
+    
+    public static int parse(String s){
+        if(s.length() != 4 && s.length() != 5){
+            throw new ChessException("Invalid move: " + s);
+        }
+        int source = square(ChessPosition.of(s.charAt(0), s.charAt(1) - '0'));
+        int target = square(ChessPosition.of(s.charAt(2), s.charAt(3) - '0'));
+        int promotion = (s.length() == 5) ? PieceCode.type(PieceCode.fromLetter(s.charAt(4))) : PieceCode.EMPTY;
+        return pack(source, target, promotion);
+    }
+}
@@ -0,0 +1,235 @@
+package chess;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/*
+Portable Game Notation. Moves are written in standard algebraic notation (SAN), which depends on the
+position: disambiguation needs the other legal moves and the suffix needs the position after the move.
+*/
+public final class Pgn {
+    private static final int LINE_LENGTH = 79;
+    private static final int MAX_LINE = 1 << 16; //Longest input line a game without a result can be followed by
+    
+    private Pgn(){
+    }
+    
+    //SAN of a packed move in the current position, e.g. Nbd7, exd6, O-O or e8=Q#. The match is left as it was.
+    public static String san(ChessMatch match, int move){
+        int[] moves = new int[256];
+        int count = match.generateLegalMoves(moves);
+        int source = Moves.source(move);
+        int target = Moves.target(move);
+        int promotion = Moves.promotion(move);
+    
+        boolean legal = false;
+        for(int i = 0; i < count && !legal; i++){
+            legal = moves[i] == move;
+        }
+        if(!legal){
+            throw new ChessException("Illegal move: " + Moves.toString(move));
+        }
+    
+        int type = PieceCode.type(match.pieceAt(source));
+        boolean capture = match.pieceAt(target) != PieceCode.EMPTY;
+        StringBuilder sb = new StringBuilder(8);
+        if(type == PieceCode.KING && Math.abs(target - source) == 2){
+            sb.append((target > source) ? "O-O" : "O-O-O");
+        }
+        else if(type == PieceCode.PAWN){
+            if(capture || source % 8 != target % 8){ //A diagonal step to an empty square is en passant
+                sb.append((char) ('a' + source % 8)).append('x');
+            }
+            sb.append(Moves.squareName(target));
+            if(promotion != PieceCode.EMPTY){
+                sb.append('=').append(PieceCode.letter(promotion));
+            }
+        }
+        else{
+            sb.append(PieceCode.letter(type));
+            boolean ambiguous = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for(int i = 0; i < count; i++){
+                int other = Moves.source(moves[i]);
+                if(other != source && Moves.target(moves[i]) == target && PieceCode.type(match.pieceAt(other)) == type){
+                    ambiguous = true;
+                    sameFile |= other % 8 == source % 8;
+                    sameRank |= other / 8 == source / 8;
+                }
+            }
+            if(ambiguous){
+                if(!sameFile){
+                    sb.append((char) ('a' + source % 8));
+                }
+                else if(!sameRank){
+                    sb.append(8 - source / 8);
+                }
+                else{
+                    sb.append(Moves.squareName(source));
+                }
+            }
+            if(capture){
+                sb.append('x');
+            }
+            sb.append(Moves.squareName(target));
+        }
+    
+        match.pushMove(move);
+        if(match.getCheck()){
+            sb.append((match.generateLegalMoves(moves) == 0) ? '#' : '+');
+        }
+        match.popMove();
+        return sb.toString();
+    }
+    
+    /*
+    The packed move for a SAN token in the current position, e.g. Nbd7, exd6, O-O or e8=Q+. Check
+    signs and annotations such as !? are ignored, and so is a missing "=" before the promotion piece.
+    */
+    public static int parseSan(ChessMatch match, String san){
+        String s = san.replaceAll("[+#!?]+$", "").replace("x", "").replace(":", "");
+        int[] moves = new int[256];
+        int count = match.generateLegalMoves(moves);
+    
+        if(s.equals("O-O") || s.equals("0-0") || s.equals("O-O-O") || s.equals("0-0-0")){
+            int direction = (s.length() == 3) ? 2 : -2;
+            for(int i = 0; i < count; i++){
+                int source = Moves.source(moves[i]);
+                if(PieceCode.type(match.pieceAt(source)) == PieceCode.KING && Moves.target(moves[i]) - source == direction){
+                    return moves[i];
+                }
+            }
+            throw new ChessException("Illegal move: " + san);
+        }
+    
+        int promotion = PieceCode.EMPTY;
+        if(s.length() > 2 && "NBRQ".indexOf(s.charAt(s.length() - 1)) >= 0 && s.charAt(0) >= 'a' && s.charAt(0) <= 'h'){
+            promotion = PieceCode.type(PieceCode.fromLetter(s.charAt(s.length() - 1)));
+            s = s.substring(0, s.length() - ((s.charAt(s.length() - 2) == '=') ? 2 : 1));
+        }
+        int type = PieceCode.PAWN;
+        if(!s.isEmpty() && "NBRQK".indexOf(s.charAt(0)) >= 0){
+            type = PieceCode.type(PieceCode.fromLetter(s.charAt(0)));
+            s = s.substring(1);
+        }
+        if(s.length() < 2 || s.length() > 4){
+            throw new ChessException("Invalid move: " + san);
+        }
+        int target = Moves.square(ChessPosition.of(s.charAt(s.length() - 2), s.charAt(s.length() - 1) - '0'));
+        String from = s.substring(0, s.length() - 2); //File, rank, both or nothing
+    
+        int found = Moves.NONE;
+        for(int i = 0; i < count; i++){
+            int source = Moves.source(moves[i]);
+            if(Moves.target(moves[i]) != target || Moves.promotion(moves[i]) != promotion || PieceCode.type(match.pieceAt(source)) != type){
+                continue;
+            }
+            boolean matches = true;
+            for(char c : from.toCharArray()){
+                matches &= (c >= 'a' && c <= 'h') ? source % 8 == c - 'a' : 8 - source / 8 == c - '0';
+            }
+            if(matches){
+                if(found != Moves.NONE){
+                    throw new ChessException("Ambiguous move: " + san);
+                }
+                found = moves[i];
+            }
+        }
+        if(found == Moves.NONE){
+            throw new ChessException("Illegal move: " + san);
+        }
+        return found;
+    }
+    
+    /*
+    Reads the next game: its tag pairs go into tags and its moves, in SAN, are returned with the
+    move numbers, comments, variations, NAGs and result left out. Returns null at the end of the input.
+    A game without a result ends where the next one's tags start.
+    */
+    public static List<String> readGame(BufferedReader in, Map<String, String> tags) throws IOException {
+        tags.clear();
+        List<String> sanMoves = new ArrayList<>();
+        boolean inMoves = false;
+        boolean inComment = false; //Inside {...}, which can span lines
+        int variationDepth = 0; //Inside (...)
+        String line;
+        for(in.mark(MAX_LINE); (line = in.readLine()) != null; in.mark(MAX_LINE)){
+            line = line.trim();
+            if(!inComment && line.startsWith("[")){
+                if(inMoves){
+                    in.reset(); //Leave the tag to the next game
+                    return sanMoves;
+                }
+                int quote = line.indexOf('"');
+                int end = line.lastIndexOf('"');
+                if(quote > 1 && end > quote){
+                    tags.put(line.substring(1, quote).trim(), line.substring(quote + 1, end).replace("\\\"", "\"").replace("\\\\", "\\"));
+                }
+                continue;
+            }
+            if(line.isEmpty() || (!inComment && line.startsWith("%"))){
+                continue;
+            }
+            inMoves = true;
+    
+            StringBuilder token = new StringBuilder();
+            for(int i = 0; i <= line.length(); i++){
+                char c = (i < line.length()) ? line.charAt(i) : ' ';
+                if(inComment){
+                    inComment = c != '}';
+                    continue;
+                }
+                if(c == '{' || c == '(' || c == ')' || c == ';' || Character.isWhitespace(c)){
+                    String word = token.toString();
+                    token.setLength(0);
+                    if(!word.isEmpty() && variationDepth == 0){
+                        if(word.equals("1-0") || word.equals("0-1") || word.equals("1/2-1/2") || word.equals("*")){
+                            return sanMoves;
+                        }
+                        word = word.replaceFirst("^[0-9]+\\.+", ""); //Move number, even when glued to the move
+                        if(!word.isEmpty() && (Character.isLetter(word.charAt(0)) || word.startsWith("0-0"))){ //Not a NAG or an evaluation sign
+                            sanMoves.add(word);
+                        }
+                    }
+                    if(c == ';'){
+                        break; //Comment to the end of the line
+                    }
+                    inComment = c == '{';
+                    variationDepth += (c == '(') ? 1 : (c == ')' && variationDepth > 0) ? -1 : 0;
+                }
+                else{
+                    token.append(c);
+                }
+            }
+        }
+        return inMoves ? sanMoves : null;
+    }
+    
+    //One game: the tag pairs in the given order, then the moves from the initial position and the result.
+    public static String game(Map<String, String> tags, List<String> sanMoves, String result){
+        StringBuilder sb = new StringBuilder(256 + sanMoves.size() * 6);
+        for(Map.Entry<String, String> tag : tags.entrySet()){
+            sb.append('[').append(tag.getKey()).append(" \"")
+                    .append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+        }
+        sb.append('\n');
+    
+        int lineStart = sb.length();
+        for(int i = 0; i <= sanMoves.size(); i++){
+            String token = (i == sanMoves.size()) ? result : (i % 2 == 0) ? (i / 2 + 1) + ". " + sanMoves.get(i) : sanMoves.get(i);
+            if(sb.length() > lineStart && sb.length() - lineStart + 1 + token.length() > LINE_LENGTH){
+                sb.append('\n');
+                lineStart = sb.length();
+            }
+            else if(sb.length() > lineStart){
+                sb.append(' ');
+            }
+            sb.append(token);
+        }
+        return sb.append("\n\n").toString();
+    }
+}
@@ -0,0 +1,73 @@
+package chess;
+
+import chess.pieces.Bishop;
+import chess.pieces.King;
+import chess.pieces.Knight;
+import chess.pieces.Pawn;
+import chess.pieces.Queen;
+import chess.pieces.Rook;
+
+/*
+Small integer codes for pieces, used wherever a position has to be stored compactly.
+The type is kept in the low 3 bits and the color in bit 3, so every code fits in a nibble.
+*/
+public final class PieceCode {
+    public static final int EMPTY = 0;
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+    
+    public static final int BLACK = 8;
+    
+    private static final String LETTERS = "-PNBRQK";
+    
+    private PieceCode(){
+    }
+    
+    public static int of(ChessPiece piece){
+        if(piece == null){
+            return EMPTY;
+        }
+        int color = (piece.getColor() == Color.BLACK) ? BLACK : 0;
+        return typeOf(piece) | color;
+    }
+    
+    public static int typeOf(ChessPiece piece){
+        if(piece instanceof Pawn) return PAWN;
+        if(piece instanceof Knight) return KNIGHT;
+        if(piece instanceof Bishop) return BISHOP;
+        if(piece instanceof Rook) return ROOK;
+        if(piece instanceof Queen) return QUEEN;
+        if(piece instanceof King) return KING;
+        throw new IllegalStateException("Unknown piece type: " + piece.getClass().getSimpleName());
+    }
+    
+    public static int type(int code){
+        return code & 7;
+    }
+    
+    public static Color color(int code){
+        return ((code & BLACK) != 0) ? Color.BLACK : Color.WHITE;
+    }
+    
+    public static int make(int type, Color color){
+        return type | ((color == Color.BLACK) ? BLACK : 0);
+    }
+    
+    //Letter used by the UI and by FEN: upper case for white, lower case for black.
+    public static char letter(int code){
+        char c = LETTERS.charAt(type(code));
+        return (color(code) == Color.BLACK && code != EMPTY) ? Character.toLowerCase(c) : c;
+    }
+    
+    public static int fromLetter(char letter){
+        int type = LETTERS.indexOf(Character.toUpperCase(letter));
+        if(type <= 0){
+            throw new ChessException("Invalid piece letter: " + letter);
+        }
+        return make(type, Character.isLowerCase(letter) ? Color.BLACK : Color.WHITE);
+    }
+}
@@ -0,0 +1,94 @@
+package chess;
+
+/*
+Immutable picture of a match after a committed move. ChessMatch replaces its snapshot as a whole
+and publishes it through a single volatile field, so any thread can read a consistent position
+without locks and without copying the board like getPieces() does.
+*/
+public final class PositionSnapshot {
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    
+    private final byte[] board; //Two squares per byte, piece codes from PieceCode
+    private final long hash;
+    private final int ply;
+    private final int turn;
+    private final Color currentPlayer;
+    private final boolean check;
+    private final boolean checkmate;
+    private final DrawReason drawReason;
+    private final int castlingRights;
+    private final int enPassantSquare; //Square a pawn could capture on, -1 if none
+    private final int halfmoveClock;
+    
+    PositionSnapshot(byte[] board, long hash, int ply, int turn, Color currentPlayer, boolean check, boolean checkmate, DrawReason drawReason,
+            int castlingRights, int enPassantSquare, int halfmoveClock){
+        this.board = board;
+        this.hash = hash;
+        this.ply = ply;
+        this.turn = turn;
+        this.currentPlayer = currentPlayer;
+        this.check = check;
+        this.checkmate = checkmate;
+        this.drawReason = drawReason;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfmoveClock = halfmoveClock;
+    }
+    
+    //Piece code (see PieceCode) on a square numbered as in Moves.
+    public int pieceAt(int square){
+        int b = board[square >> 1];
+        return ((square & 1) == 0) ? b & 0x0F : (b >>> 4) & 0x0F;
+    }
+    
+    public int pieceAt(ChessPosition position){
+        return pieceAt(Moves.square(position));
+    }
+    
+    public long getHash(){
+        return hash;
+    }
+    
+    public int getPly(){
+        return ply;
+    }
+    
+    public int getTurn(){
+        return turn;
+    }
+    
+    public Color getCurrentPlayer(){
+        return currentPlayer;
+    }
+    
+    public boolean getCheck(){
+        return check;
+    }
+    
+    public boolean getCheckmate(){
+        return checkmate;
+    }
+    
+    public boolean getDraw(){
+        return drawReason != null;
+    }
+    
+    public DrawReason getDrawReason(){
+        return drawReason;
+    }
+    
+    public int getCastlingRights(){
+        return castlingRights;
+    }
+    
+    public int getEnPassantSquare(){
+        return enPassantSquare;
+    }
+    
+    public int getHalfmoveClock(){
+        return halfmoveClock;
+    }
+}
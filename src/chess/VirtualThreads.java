@@ -0,0 +1,24 @@
+package chess;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+Virtual threads when the JVM has them (Java 21+). The project still compiles for Java 11, so they are
+looked up by reflection. Callers pick their own fallback: the server's sessions and the engine's analyses
+want different platform thread pools.
+*/
+public final class VirtualThreads {
+    private VirtualThreads(){
+    }
+    
+    //One new virtual thread per task, or null before Java 21.
+    public static ExecutorService newExecutor(){
+        try{
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(ReflectiveOperationException e){
+            return null;
+        }
+    }
+}
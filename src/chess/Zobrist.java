@@ -0,0 +1,28 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+//Random keys used to hash positions. A fixed seed keeps hashes stable between runs.
+final class Zobrist {
+    static final long[] PIECES = new long[16 * 64]; //indexed by piece code * 64 + square
+    static final long BLACK_TO_MOVE;
+    static final long[] CASTLING = new long[4];
+    static final long[] EN_PASSANT = new long[8]; //indexed by column
+    
+    static {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for(int i = 0; i < PIECES.length; i++){
+            PIECES[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        for(int i = 0; i < CASTLING.length; i++){
+            CASTLING[i] = random.nextLong();
+        }
+        for(int i = 0; i < EN_PASSANT.length; i++){
+            EN_PASSANT[i] = random.nextLong();
+        }
+    }
+    
+    private Zobrist(){
+    }
+}
@@ -0,0 +1,8 @@
+package chess.clock;
+
+//How a clock rewards a move. The bonus is the increment or the delay of the time control.
+public enum ClockMode {
+    INCREMENT, //Fischer: the bonus is added after every move
+    DELAY, //Simple delay: the clock only starts running once the bonus has passed
+    BRONSTEIN; //The time used is given back after the move, up to the bonus
+}
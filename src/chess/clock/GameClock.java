@@ -0,0 +1,175 @@
+package chess.clock;
+
+import chess.Color;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+The two clocks of a timed match. Only the side to move has a running clock; press() charges the
+mover and starts the opponent's. Instead of polling, every running clock has a timeout on a shared
+TimingWheel at the moment it would reach zero, which flags the player unless a move came first.
+Safe to use from the match thread while the wheel fires timeouts from its own thread.
+*/
+public class GameClock {
+    private final TimingWheel wheel;
+    private final TimeSource time;
+    private final ClockMode mode;
+    private final long bonusNanos;
+    private final Consumer<Color> onFlag; //Null if nobody needs to know right away
+    
+    private final long[] remaining = new long[Color.values().length]; //Nanoseconds, by Color ordinal
+    private Color running; //Null while stopped
+    private long turnStart;
+    private TimingWheel.Timeout timeout;
+    private Color flagged;
+    
+    public GameClock(TimingWheel wheel, long baseMillis, long bonusMillis, ClockMode mode, Consumer<Color> onFlag){
+        this.wheel = wheel;
+        this.time = wheel.getTimeSource();
+        this.mode = mode;
+        this.bonusNanos = TimeUnit.MILLISECONDS.toNanos(bonusMillis);
+        this.onFlag = onFlag;
+        remaining[Color.WHITE.ordinal()] = TimeUnit.MILLISECONDS.toNanos(baseMillis);
+        remaining[Color.BLACK.ordinal()] = TimeUnit.MILLISECONDS.toNanos(baseMillis);
+    }
+    
+    public ClockMode getMode(){
+        return mode;
+    }
+    
+    //The player whose time ran out, null if nobody's did.
+    public synchronized Color getFlagged(){
+        return flagged;
+    }
+    
+    public synchronized Color getRunning(){
+        return running;
+    }
+    
+    //Time left as it would be charged now, not counting a delay that hasn't been used yet.
+    public synchronized long remainingMillis(Color color){
+        long left = remaining[color.ordinal()];
+        if(color == running){
+            left -= charge(time.nanoTime() - turnStart);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, left));
+    }
+    
+    /*
+    Ends the mover's turn: takes the time used off their clock, applies the bonus and starts the opponent's clock.
+    Returns false, and flags the mover, if their time had already run out.
+    */
+    public boolean press(Color mover){
+        boolean inTime;
+        synchronized(this){
+            if(flagged != null){
+                return false;
+            }
+            long now = time.nanoTime();
+            if(running == mover){
+                long used = now - turnStart;
+                remaining[mover.ordinal()] -= charge(used);
+                inTime = remaining[mover.ordinal()] > 0;
+                if(inTime && mode != ClockMode.DELAY){
+                    remaining[mover.ordinal()] += (mode == ClockMode.INCREMENT) ? bonusNanos : Math.min(used, bonusNanos);
+                }
+            }
+            else{
+                inTime = remaining[mover.ordinal()] > 0;
+            }
+            if(inTime){
+                startLocked(opponent(mover), now);
+            }
+            else{
+                flagLocked(mover);
+            }
+        }
+        if(!inTime && onFlag != null){
+            onFlag.accept(mover);
+        }
+        return inTime;
+    }
+    
+    //Gives the move to a side without a bonus, e.g. after a take back; the time used so far is charged.
+    public synchronized void switchTo(Color toMove){
+        if(flagged != null){
+            return;
+        }
+        long now = time.nanoTime();
+        stopLocked(now);
+        startLocked(toMove, now);
+    }
+    
+    //Whether the player has run out of time, flagging them if the wheel hasn't yet.
+    public boolean isOutOfTime(Color color){
+        synchronized(this){
+            if(flagged != null){
+                return flagged == color;
+            }
+            if(color != running || remaining[color.ordinal()] - charge(time.nanoTime() - turnStart) > 0){
+                return false;
+            }
+            flagLocked(color);
+        }
+        if(onFlag != null){
+            onFlag.accept(color);
+        }
+        return true;
+    }
+    
+    //Stops both clocks, e.g. once the game is over. The time used so far is charged.
+    public synchronized void stop(){
+        stopLocked(time.nanoTime());
+    }
+    
+    private void startLocked(Color color, long now){
+        cancelTimeout();
+        running = color;
+        turnStart = now;
+        long zero = now + remaining[color.ordinal()] + ((mode == ClockMode.DELAY) ? bonusNanos : 0);
+        timeout = wheel.schedule(zero, () -> expire(color, zero));
+    }
+    
+    private void stopLocked(long now){
+        if(running != null){
+            remaining[running.ordinal()] -= charge(now - turnStart);
+            running = null;
+        }
+        cancelTimeout();
+    }
+    
+    private void expire(Color color, long zero){
+        synchronized(this){
+            if(running != color || flagged != null || time.nanoTime() < zero){
+                return; //A move or a stop got in first
+            }
+            flagLocked(color);
+        }
+        if(onFlag != null){
+            onFlag.accept(color);
+        }
+    }
+    
+    private void flagLocked(Color color){
+        flagged = color;
+        remaining[color.ordinal()] = 0;
+        running = null;
+        cancelTimeout();
+    }
+    
+    private void cancelTimeout(){
+        if(timeout != null){
+            timeout.cancel();
+            timeout = null;
+        }
+    }
+    
+    //Time taken off the clock for a turn that lasted so long.
+    private long charge(long used){
+        return (mode == ClockMode.DELAY) ? Math.max(0, used - bonusNanos) : used;
+    }
+    
+    private static Color opponent(Color color){
+        return (color == Color.WHITE) ? Color.BLACK : Color.WHITE;
+    }
+}
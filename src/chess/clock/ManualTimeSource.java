@@ -0,0 +1,17 @@
+package chess.clock;
+
+import java.util.concurrent.TimeUnit;
+
+//A time source that only moves when told to, for driving clocks and timing wheels step by step.
+public class ManualTimeSource implements TimeSource {
+    private volatile long nanos;
+    
+    @Override
+    public long nanoTime(){
+        return nanos;
+    }
+    
+    public void advance(long amount, TimeUnit unit){
+        nanos += unit.toNanos(amount);
+    }
+}
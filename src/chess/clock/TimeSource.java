@@ -0,0 +1,8 @@
+package chess.clock;
+
+//Where clocks and timing wheels read the time: nanoseconds from an arbitrary origin, like System.nanoTime.
+public interface TimeSource {
+    TimeSource SYSTEM = System::nanoTime;
+    
+    long nanoTime();
+}
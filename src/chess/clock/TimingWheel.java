@@ -0,0 +1,252 @@
+package chess.clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Hierarchical timing wheel, shared by any number of clocks. Level 0 has one slot per tick, each level
+above has slots 64 times longer. A timeout goes into the lowest level that reaches its deadline and moves
+down a level each time its slot comes round, so scheduling and cancelling are O(1) whatever the number
+of timeouts. An occupancy mask per level tells where the next non-empty slot is, and the driver thread
+sleeps straight until then instead of waking up every tick.
+Tasks run on the driver thread (or the caller of advance) and must be short: hand real work to an executor.
+*/
+public class TimingWheel implements AutoCloseable {
+    private static final int LEVELS = 4; //64^4 ticks, 4.6 hours at 1 ms; longer timeouts wait in the top level
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    
+    private final TimeSource time;
+    private final long tickNanos;
+    private final long origin;
+    private final Timeout[][] slots = new Timeout[LEVELS][SLOTS]; //Heads of doubly linked lists
+    private final long[] occupied = new long[LEVELS]; //Bit s set when slot s isn't empty
+    private long currentTick; //Next tick to be processed
+    private int size;
+    
+    private final Thread driver; //Null when advance is called by hand
+    private long wakeTick = Long.MAX_VALUE; //Tick the driver sleeps until
+    private volatile boolean closed;
+    
+    //A wheel with a 1 ms tick and its own driver thread.
+    public TimingWheel(){
+        this(TimeSource.SYSTEM, TimeUnit.MILLISECONDS.toNanos(1), true);
+    }
+    
+    //Without a driver, nothing fires until advance() is called, e.g. after moving a ManualTimeSource.
+    public TimingWheel(TimeSource time, long tickNanos, boolean startDriver){
+        this.time = time;
+        this.tickNanos = tickNanos;
+        this.origin = time.nanoTime();
+        if(startDriver){
+            driver = new Thread(this::drive, "timing-wheel");
+            driver.setDaemon(true);
+            driver.start();
+        }
+        else{
+            driver = null;
+        }
+    }
+    
+    public TimeSource getTimeSource(){
+        return time;
+    }
+    
+    public synchronized int size(){
+        return size;
+    }
+    
+    //Runs the task once the time source reaches the deadline, never before, and at most a tick or so after.
+    public Timeout schedule(long deadlineNanos, Runnable task){
+        Timeout timeout = new Timeout(this, task, -Math.floorDiv(origin - deadlineNanos, tickNanos)); //Rounded up
+        boolean wake;
+        synchronized(this){
+            if(closed){
+                throw new IllegalStateException("The timing wheel is closed.");
+            }
+            insert(timeout);
+            size++;
+            wake = timeout.deadlineTick < wakeTick;
+        }
+        if(wake && driver != null){
+            LockSupport.unpark(driver);
+        }
+        return timeout;
+    }
+    
+    //Runs the tasks that are due by now on the calling thread. Returns how many ran.
+    public int advance(){
+        List<Timeout> expired = new ArrayList<>();
+        synchronized(this){
+            expire(tick(time.nanoTime()), expired);
+        }
+        for(Timeout timeout : expired){
+            try{
+                timeout.task.run();
+            }
+            catch(RuntimeException e){
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        }
+        return expired.size();
+    }
+    
+    @Override
+    public void close(){
+        closed = true;
+        if(driver != null){
+            LockSupport.unpark(driver);
+        }
+    }
+    
+    private void drive(){
+        while(!closed){
+            advance();
+            long sleep;
+            synchronized(this){
+                wakeTick = nextEventTick();
+                sleep = (wakeTick == Long.MAX_VALUE) ? Long.MAX_VALUE : origin + wakeTick * tickNanos - time.nanoTime();
+            }
+            if(sleep > 0){
+                LockSupport.parkNanos(this, sleep);
+            }
+        }
+    }
+    
+    private long tick(long nanos){
+        return Math.floorDiv(nanos - origin, tickNanos);
+    }
+    
+    //Processes every tick up to and including nowTick, visiting only the ticks where something happens.
+    private void expire(long nowTick, List<Timeout> expired){
+        long next;
+        while((next = nextEventTick()) <= nowTick){
+            currentTick = next;
+            for(int level = LEVELS - 1; level > 0; level--){
+                if((next & ((1L << (level * SLOT_BITS)) - 1)) == 0){
+                    cascade(level, (int) (next >>> (level * SLOT_BITS)) & (SLOTS - 1));
+                }
+            }
+            int slot = (int) next & (SLOTS - 1);
+            Timeout timeout = slots[0][slot];
+            slots[0][slot] = null;
+            occupied[0] &= ~(1L << slot);
+            for(; timeout != null; timeout = timeout.next){
+                timeout.state = Timeout.EXPIRED;
+                timeout.prev = null;
+                size--;
+                expired.add(timeout);
+            }
+            currentTick = next + 1;
+        }
+        currentTick = Math.max(currentTick, nowTick + 1);
+    }
+    
+    //Moves the timeouts of a slot that has come round down to the levels that now reach them.
+    private void cascade(int level, int slot){
+        Timeout timeout = slots[level][slot];
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        while(timeout != null){
+            Timeout next = timeout.next;
+            insert(timeout);
+            timeout = next;
+        }
+    }
+    
+    private void insert(Timeout timeout){
+        long delay = timeout.deadlineTick - currentTick;
+        int level = 0;
+        long slotTick = Math.max(timeout.deadlineTick, currentTick);
+        while(level < LEVELS - 1 && delay >= (1L << ((level + 1) * SLOT_BITS))){
+            level++;
+        }
+        if(level == LEVELS - 1 && delay >= (1L << (LEVELS * SLOT_BITS))){
+            slotTick = currentTick + ((SLOTS - 1L) << (level * SLOT_BITS)); //As far as the wheel reaches, it gets cascaded again from there
+        }
+        int slot = (int) (slotTick >>> (level * SLOT_BITS)) & (SLOTS - 1);
+        timeout.level = level;
+        timeout.slot = slot;
+        timeout.prev = null;
+        timeout.next = slots[level][slot];
+        if(timeout.next != null){
+            timeout.next.prev = timeout;
+        }
+        slots[level][slot] = timeout;
+        occupied[level] |= 1L << slot;
+    }
+    
+    private synchronized boolean cancel(Timeout timeout){
+        if(timeout.state != Timeout.PENDING){
+            return false;
+        }
+        timeout.state = Timeout.CANCELLED;
+        if(timeout.prev != null){
+            timeout.prev.next = timeout.next;
+        }
+        else{
+            slots[timeout.level][timeout.slot] = timeout.next;
+            if(timeout.next == null){
+                occupied[timeout.level] &= ~(1L << timeout.slot);
+            }
+        }
+        if(timeout.next != null){
+            timeout.next.prev = timeout.prev;
+        }
+        size--;
+        return true;
+    }
+    
+    /*
+    First tick, from currentTick on, with something to do: a level 0 slot to expire or a higher
+    level slot to cascade, which happens when the tick reaches the start of that slot.
+    */
+    private long nextEventTick(){
+        long next = Long.MAX_VALUE;
+        for(int level = 0; level < LEVELS; level++){
+            if(occupied[level] == 0){
+                continue;
+            }
+            int shift = level * SLOT_BITS;
+            long first = (currentTick + (1L << shift) - 1) >>> shift; //First slot of this level starting at or after currentTick
+            int distance = Long.numberOfTrailingZeros(Long.rotateRight(occupied[level], (int) first & (SLOTS - 1)));
+            next = Math.min(next, (first + distance) << shift);
+        }
+        return next;
+    }
+    
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int EXPIRED = 1;
+        private static final int CANCELLED = 2;
+    
+        private final TimingWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick;
+        private Timeout prev;
+        private Timeout next;
+        private int level;
+        private int slot;
+        private int state; //Guarded by the wheel
+    
+        private Timeout(TimingWheel wheel, Runnable task, long deadlineTick){
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+    
+        //Returns false if the task already ran or was cancelled before.
+        public boolean cancel(){
+            return wheel.cancel(this);
+        }
+    
+        public boolean isExpired(){
+            synchronized(wheel){
+                return state == EXPIRED;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package chess.events;
+
+//Read position of one consumer. Cursors are independent, so any number of them can follow a ring.
+public class EventCursor {
+    private final EventRing ring;
+    private long next;
+    private long lost;
+    
+    EventCursor(EventRing ring, long next){
+        this.ring = ring;
+        this.next = next;
+    }
+    
+    //Copies the next event into the holder, false when there is nothing new.
+    public boolean poll(MatchEvent holder){
+        while(true){
+            int result = ring.read(next, holder);
+            if(result > 0){
+                next++;
+                return true;
+            }
+            if(result == 0){
+                return false;
+            }
+            //Overrun: skip to the oldest event still in the ring.
+            long oldest = ring.getCursor() - ring.getCapacity() + 1;
+            lost += oldest - next;
+            next = oldest;
+        }
+    }
+    
+    //Hands every pending event to the handler through the same holder, returns how many there were.
+    public int drain(MatchEvent holder, EventHandler handler){
+        int count = 0;
+        while(poll(holder)){
+            handler.onEvent(holder);
+            count++;
+        }
+        return count;
+    }
+    
+    //Events overwritten before this cursor could read them.
+    public long getLost(){
+        return lost;
+    }
+}
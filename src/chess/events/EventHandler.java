@@ -0,0 +1,6 @@
+package chess.events;
+
+public interface EventHandler {
+    //The event is only valid during the call; it is reused for the next one.
+    void onEvent(MatchEvent event);
+}
@@ -0,0 +1,73 @@
+package chess.events;
+
+import java.lang.invoke.VarHandle;
+
+/*
+Single producer, many consumers ring of match events. The producer never waits: when a consumer
+falls more than a full ring behind, its oldest events are overwritten and the consumer is told how
+many it lost. Each slot works as a seqlock, its sequence is cleared while the slot is being written.
+*/
+public class EventRing {
+    private final MatchEvent[] slots;
+    private final int mask;
+    private volatile long cursor = -1; //Sequence of the last published event
+    
+    public EventRing(int capacity){
+        if(capacity < 2 || Integer.bitCount(capacity) != 1){
+            throw new IllegalArgumentException("The capacity must be a power of two.");
+        }
+        slots = new MatchEvent[capacity];
+        for(int i = 0; i < capacity; i++){
+            slots[i] = new MatchEvent();
+        }
+        mask = capacity - 1;
+    }
+    
+    public int getCapacity(){
+        return slots.length;
+    }
+    
+    public long getCursor(){
+        return cursor;
+    }
+    
+    //A cursor that sees the events published from now on.
+    public EventCursor newCursor(){
+        return new EventCursor(this, cursor + 1);
+    }
+    
+    //Only ever called from the thread that owns the match.
+    public void publish(MatchEventType type, int ply, int source, int target, int piece, int captured){
+        long sequence = cursor + 1;
+        MatchEvent slot = slots[(int) sequence & mask];
+        
+        slot.sequence = -1;
+        VarHandle.storeStoreFence();
+        slot.type = type;
+        slot.ply = ply;
+        slot.source = source;
+        slot.target = target;
+        slot.piece = piece;
+        slot.captured = captured;
+        slot.sequence = sequence;
+        
+        cursor = sequence;
+    }
+    
+    /*
+    Copies event "sequence" into the holder. Returns 1 when it was copied, 0 when it isn't published
+    yet and -1 when it was already overwritten.
+    */
+    int read(long sequence, MatchEvent holder){
+        if(sequence > cursor){
+            return 0;
+        }
+        MatchEvent slot = slots[(int) sequence & mask];
+        if(slot.sequence != sequence){
+            return -1;
+        }
+        slot.copyTo(holder);
+        VarHandle.loadLoadFence();
+        return (slot.sequence == sequence) ? 1 : -1;
+    }
+}
@@ -0,0 +1,64 @@
+package chess.events;
+
+import chess.Moves;
+
+/*
+One event slot. The ring preallocates them and consumers copy into holders of their own,
+so publishing and reading never create objects.
+
+    MOVE          source, target, piece moved, piece captured (PieceCode.EMPTY if none)
+    PROMOTION     target is the square, piece is the new piece
+    CHECK         piece is the king in check
+    CHECKMATE     piece is the mated king
+    DRAW          nothing else set
+    TIME_FORFEIT  piece is the king of the player whose time ran out
+*/
+public class MatchEvent {
+    volatile long sequence = -1; //Sequence of the event the slot holds, -1 while it's being written
+    
+    MatchEventType type;
+    int ply;
+    int source;
+    int target;
+    int piece;
+    int captured;
+    
+    public MatchEventType getType(){
+        return type;
+    }
+    
+    //Number of moves played when the event happened, the same for every event of one move.
+    public int getPly(){
+        return ply;
+    }
+    
+    public int getSource(){
+        return source;
+    }
+    
+    public int getTarget(){
+        return target;
+    }
+    
+    public int getPiece(){
+        return piece;
+    }
+    
+    public int getCaptured(){
+        return captured;
+    }
+    
+    void copyTo(MatchEvent other){
+        other.type = type;
+        other.ply = ply;
+        other.source = source;
+        other.target = target;
+        other.piece = piece;
+        other.captured = captured;
+    }
+    
+    @Override
+    public String toString(){
+        return type + " " + ply + " " + Moves.squareName(source) + Moves.squareName(target) + " " + piece + " " + captured;
+    }
+}
@@ -0,0 +1,10 @@
+package chess.events;
+
+public enum MatchEventType {
+    MOVE,
+    PROMOTION,
+    CHECK,
+    CHECKMATE,
+    DRAW,
+    TIME_FORFEIT;
+}
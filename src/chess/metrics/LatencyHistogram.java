@@ -0,0 +1,76 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+Call count and latency distribution of one operation. Buckets are powers of two nanoseconds,
+each a LongAdder, so recording from many threads is a couple of uncontended adds and no locks.
+Percentiles are read from the buckets and are accurate to a factor of two.
+*/
+public final class LatencyHistogram {
+    private static final int MIN_SHIFT = 5; //Everything up to 32 ns goes to the first bucket
+    private static final int BUCKETS = 26; //The last one takes everything from about 1 second up
+    
+    private final String name;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    
+    LatencyHistogram(String name){
+        this.name = name;
+        for(int i = 0; i < BUCKETS; i++){
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    public String getName(){
+        return name;
+    }
+    
+    public void record(long nanos){
+        int bucket = Math.max(0, 64 - Long.numberOfLeadingZeros(nanos) - MIN_SHIFT);
+        buckets[Math.min(bucket, BUCKETS - 1)].increment();
+        count.increment();
+        totalNanos.add(nanos);
+    }
+    
+    public long getCount(){
+        return count.sum();
+    }
+    
+    public double getMeanNanos(){
+        long n = count.sum();
+        return (n == 0) ? 0 : totalNanos.sum() / (double) n;
+    }
+    
+    //Upper bound of the bucket holding the given fraction of the calls, 0 when there were none.
+    public long getPercentileNanos(double p){
+        long[] counts = new long[BUCKETS];
+        long n = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            counts[i] = buckets[i].sum();
+            n += counts[i];
+        }
+        if(n == 0){
+            return 0;
+        }
+        long rank = (long) Math.ceil(n * p);
+        long seen = 0;
+        for(int i = 0; i < BUCKETS; i++){
+            seen += counts[i];
+            if(seen >= rank){
+                return 1L << (i + MIN_SHIFT);
+            }
+        }
+        return 1L << (BUCKETS - 1 + MIN_SHIFT);
+    }
+    
+    //Not atomic with concurrent records, a few calls may survive a reset.
+    public void reset(){
+        count.reset();
+        totalNanos.reset();
+        for(LongAdder bucket : buckets){
+            bucket.reset();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+//Flight recorder event for the search that decides checkmate and stalemate after every move.
+@Name("chess.LegalMoveSearch")
+@Label("Legal Move Search")
+@Category("Chess")
+@Description("Looking for any legal reply, the checkmate and stalemate test")
+@Enabled(false)
+public class LegalMoveSearchEvent extends Event {
+    private static final LegalMoveSearchEvent PROBE = new LegalMoveSearchEvent();
+    
+    @Label("Color")
+    public String color;
+    
+    @Label("In Check")
+    public boolean inCheck;
+    
+    @Label("Trial Moves")
+    @Description("Moves made and taken back to test them for self-check")
+    public int trialMoves;
+    
+    @Label("Found")
+    @Description("False means checkmate or stalemate")
+    public boolean found;
+    
+    @Label("Piece Hash")
+    @Description("Zobrist hash of the pieces, without side to move or castling rights")
+    public long pieceHash;
+    
+    public static boolean enabled(){
+        return PROBE.isEnabled();
+    }
+}
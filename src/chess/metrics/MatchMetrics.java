@@ -0,0 +1,72 @@
+package chess.metrics;
+
+import java.util.List;
+
+//JMX view of Metrics, registered by Metrics.registerMBean().
+public class MatchMetrics implements MatchMetricsMBean {
+    public static final String OBJECT_NAME = "chess:type=Metrics";
+    
+    @Override
+    public boolean isEnabled(){
+        return Metrics.ENABLED;
+    }
+    
+    @Override
+    public String[] getOperations(){
+        List<LatencyHistogram> all = Metrics.getHistograms();
+        String[] names = new String[all.size()];
+        for(int i = 0; i < names.length; i++){
+            names[i] = all.get(i).getName();
+        }
+        return names;
+    }
+    
+    @Override
+    public long[] getCounts(){
+        List<LatencyHistogram> all = Metrics.getHistograms();
+        long[] counts = new long[all.size()];
+        for(int i = 0; i < counts.length; i++){
+            counts[i] = all.get(i).getCount();
+        }
+        return counts;
+    }
+    
+    @Override
+    public double[] getMeanMicros(){
+        List<LatencyHistogram> all = Metrics.getHistograms();
+        double[] means = new double[all.size()];
+        for(int i = 0; i < means.length; i++){
+            means[i] = all.get(i).getMeanNanos() / 1e3;
+        }
+        return means;
+    }
+    
+    @Override
+    public double[] getP50Micros(){
+        return percentiles(0.50);
+    }
+    
+    @Override
+    public double[] getP99Micros(){
+        return percentiles(0.99);
+    }
+    
+    @Override
+    public String dump(){
+        return Metrics.dump();
+    }
+    
+    @Override
+    public void reset(){
+        Metrics.reset();
+    }
+    
+    private static double[] percentiles(double p){
+        List<LatencyHistogram> all = Metrics.getHistograms();
+        double[] values = new double[all.size()];
+        for(int i = 0; i < values.length; i++){
+            values[i] = all.get(i).getPercentileNanos(p) / 1e3;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,21 @@
+package chess.metrics;
+
+//Management interface of MatchMetrics. The arrays follow the order of getOperations().
+public interface MatchMetricsMBean {
+    
+    boolean isEnabled();
+    
+    String[] getOperations();
+    
+    long[] getCounts();
+    
+    double[] getMeanMicros();
+    
+    double[] getP50Micros();
+    
+    double[] getP99Micros();
+    
+    String dump();
+    
+    void reset();
+}
@@ -0,0 +1,69 @@
+package chess.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/*
+Latency of the match hot paths. Off unless the JVM runs with -Dchess.metrics=true: ENABLED is a
+static final constant, so the JIT drops every "if(Metrics.ENABLED)" block and the timing costs
+nothing when it's off.
+*/
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+    
+    public static final LatencyHistogram PERFORM_MOVE = new LatencyHistogram("performChessMove");
+    public static final LatencyHistogram REJECTED_MOVE = new LatencyHistogram("performChessMove (self-check)");
+    public static final LatencyHistogram TEST_CHECK = new LatencyHistogram("testCheck");
+    public static final LatencyHistogram ANY_LEGAL_MOVE = new LatencyHistogram("hasAnyLegalMove");
+    public static final LatencyHistogram MAKE_MOVE = new LatencyHistogram("makeMove");
+    public static final LatencyHistogram UNDO_MOVE = new LatencyHistogram("undoMove");
+    public static final LatencyHistogram MOVE_GENERATION = new LatencyHistogram("possibleMoves");
+    
+    private static final List<LatencyHistogram> ALL = Collections.unmodifiableList(Arrays.asList(
+            PERFORM_MOVE, REJECTED_MOVE, TEST_CHECK, ANY_LEGAL_MOVE, MAKE_MOVE, UNDO_MOVE, MOVE_GENERATION));
+    
+    private Metrics(){
+    }
+    
+    public static List<LatencyHistogram> getHistograms(){
+        return ALL;
+    }
+    
+    public static void reset(){
+        for(LatencyHistogram histogram : ALL){
+            histogram.reset();
+        }
+    }
+    
+    //One line per operation, latencies in microseconds.
+    public static String dump(){
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-30s %12s %10s %10s %10s%n", "operation", "count", "mean", "p50", "p99"));
+        for(LatencyHistogram h : ALL){
+            sb.append(String.format("%-30s %12d %10.2f %10.2f %10.2f%n", h.getName(), h.getCount(), h.getMeanNanos() / 1e3,
+                    h.getPercentileNanos(0.50) / 1e3, h.getPercentileNanos(0.99) / 1e3));
+        }
+        if(!ENABLED){
+            sb.append("(disabled, run with -Dchess.metrics=true)").append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+    
+    //Registers the MBean as chess:type=Metrics. Calling it again does nothing.
+    public static void registerMBean(){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MatchMetrics(), new ObjectName(MatchMetrics.OBJECT_NAME));
+        }
+        catch(InstanceAlreadyExistsException e){
+            //Already there
+        }
+        catch(JMException e){
+            throw new IllegalStateException("Could not register the metrics MBean.", e);
+        }
+    }
+}
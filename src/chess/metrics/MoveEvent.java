@@ -0,0 +1,45 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+Flight recorder event for one performChessMove call, recorded by the chess.jfc profile.
+Disabled by default; while it is, ChessMatch doesn't even create it.
+*/
+@Name("chess.PerformChessMove")
+@Label("Perform Chess Move")
+@Category("Chess")
+@Description("A move request, with its outcome and the position it was made on")
+@Enabled(false)
+public class MoveEvent extends Event {
+    private static final MoveEvent PROBE = new MoveEvent();
+    
+    @Label("Source")
+    public String source;
+    
+    @Label("Target")
+    public String target;
+    
+    @Label("Outcome")
+    @Description("moved, check, checkmate, draw or rejected")
+    public String outcome;
+    
+    @Label("Message")
+    @Description("Why the move was rejected")
+    public String message;
+    
+    @Label("Ply")
+    public int ply;
+    
+    @Label("Position Hash")
+    public long positionHash;
+    
+    public static boolean enabled(){
+        return PROBE.isEnabled();
+    }
+}
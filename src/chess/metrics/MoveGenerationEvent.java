@@ -0,0 +1,33 @@
+package chess.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+//Flight recorder event for the possibleMoves() of one piece. Very frequent, so chess.jfc sets a threshold.
+@Name("chess.MoveGeneration")
+@Label("Move Generation")
+@Category("Chess")
+@Description("Possible moves of one piece")
+@Enabled(false)
+@StackTrace(false)
+public class MoveGenerationEvent extends Event {
+    private static final MoveGenerationEvent PROBE = new MoveGenerationEvent();
+    
+    @Label("Piece")
+    public String piece;
+    
+    @Label("Square")
+    public String square;
+    
+    @Label("Moves")
+    public int moves;
+    
+    public static boolean enabled(){
+        return PROBE.isEnabled();
+    }
+}
@@ -0,0 +1,61 @@
+package chess.nnue;
+
+import chess.Color;
+import java.util.Arrays;
+
+/*
+The hidden layer of a Network for one position, from both sides' perspectives. Putting a piece on a
+square or taking it off adds or subtracts one row of weights per perspective. A move costs a few such
+updates instead of recomputing the layer from all the pieces. ChessMatch makes the updates as its
+board changes.
+*/
+public final class Accumulator {
+    private final Network network;
+    private final short[] white;
+    private final short[] black;
+    
+    public Accumulator(Network network){
+        this.network = network;
+        this.white = network.featureBiases.clone();
+        this.black = network.featureBiases.clone();
+    }
+    
+    public Network getNetwork(){
+        return network;
+    }
+    
+    public void add(int code, int square){
+        add(white, Network.feature(Color.WHITE, code, square) * network.hidden);
+        add(black, Network.feature(Color.BLACK, code, square) * network.hidden);
+    }
+    
+    public void remove(int code, int square){
+        subtract(white, Network.feature(Color.WHITE, code, square) * network.hidden);
+        subtract(black, Network.feature(Color.BLACK, code, square) * network.hidden);
+    }
+    
+    //Centipawns from the point of view of the side to move.
+    public int evaluate(Color sideToMove){
+        return (sideToMove == Color.WHITE) ? network.evaluate(white, black) : network.evaluate(black, white);
+    }
+    
+    //Whether both hold the same neurons, e.g. one updated move by move and one built from scratch.
+    public boolean sameAs(Accumulator other){
+        return Arrays.equals(white, other.white) && Arrays.equals(black, other.black);
+    }
+    
+    //int16 adds over a whole row, a counted loop the JIT vectorizes. Networks are made so the sums stay in range.
+    private void add(short[] neurons, int row){
+        short[] weights = network.featureWeights;
+        for(int j = 0; j < neurons.length; j++){
+            neurons[j] += weights[row + j];
+        }
+    }
+    
+    private void subtract(short[] neurons, int row){
+        short[] weights = network.featureWeights;
+        for(int j = 0; j < neurons.length; j++){
+            neurons[j] -= weights[row + j];
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package chess.nnue;
+
+import chess.Color;
+import chess.PieceCode;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+Weights of an efficiently updatable neural network (NNUE). There are 768 piece-square inputs per
+perspective and one hidden layer of int16 neurons with a clipped ReLU, followed by a single output.
+The hidden layer is the expensive part, and Accumulator keeps it up to date move by move, so an
+evaluation only runs the output layer. Inputs are seen from each side: own or opponent's piece, by
+type, on the square as that side sees it (mirrored for black).
+Immutable, so one network can serve any number of matches and threads.
+*/
+public final class Network {
+    public static final int FEATURES = 2 * 6 * 64;
+    
+    private static final int MAGIC = 0x4E4E5545; //"NNUE"
+    
+    final int hidden;
+    final short[] featureWeights; //FEATURES rows of hidden weights, so a feature's weights are contiguous
+    final short[] featureBiases;
+    final short[] outputWeights; //The side to move's neurons first, then the opponent's
+    final int outputBias;
+    final int activationMax; //Clipped ReLU ceiling
+    final int scale; //Output divisor that gives centipawns
+    
+    public Network(int hidden, short[] featureWeights, short[] featureBiases, short[] outputWeights, int outputBias, int activationMax, int scale){
+        if(hidden <= 0 || featureWeights.length != FEATURES * hidden || featureBiases.length != hidden || outputWeights.length != 2 * hidden || scale <= 0){
+            throw new IllegalArgumentException("Network layers don't match a hidden layer of " + hidden);
+        }
+        this.hidden = hidden;
+        this.featureWeights = featureWeights.clone();
+        this.featureBiases = featureBiases.clone();
+        this.outputWeights = outputWeights.clone();
+        this.outputBias = outputBias;
+        this.activationMax = activationMax;
+        this.scale = scale;
+    }
+    
+    public int getHidden(){
+        return hidden;
+    }
+    
+    //Row of a piece in featureWeights, as the perspective player sees it.
+    static int feature(Color perspective, int code, int square){
+        int side = (PieceCode.color(code) == perspective) ? 0 : 6;
+        return (side + PieceCode.type(code) - 1) * 64 + ((perspective == Color.WHITE) ? square : square ^ 56);
+    }
+    
+    /*
+    The output layer: an int16 dot product of the clipped hidden neurons with the output weights,
+    accumulated in 32 bits. Kept as plain counted loops over arrays, which the JIT turns into
+    SIMD instructions on its own (the project targets Java 11, which has no Vector API).
+    */
+    int evaluate(short[] us, short[] them){
+        int max = activationMax;
+        int sum = 0;
+        for(int j = 0; j < hidden; j++){
+            sum += Math.min(Math.max(us[j], 0), max) * outputWeights[j];
+        }
+        for(int j = 0; j < hidden; j++){
+            sum += Math.min(Math.max(them[j], 0), max) * outputWeights[hidden + j];
+        }
+        return (sum + outputBias) / scale;
+    }
+    
+    public static Network load(Path path) throws IOException {
+        try(DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))){
+            if(in.readInt() != MAGIC){
+                throw new IOException("Not a network file: " + path);
+            }
+            int hidden = in.readInt();
+            int outputBias = in.readInt();
+            int activationMax = in.readInt();
+            int scale = in.readInt();
+            if(hidden <= 0 || hidden > 4096){
+                throw new IOException("Unexpected hidden layer size " + hidden + " in " + path);
+            }
+            short[] featureWeights = readShorts(in, FEATURES * hidden);
+            short[] featureBiases = readShorts(in, hidden);
+            short[] outputWeights = readShorts(in, 2 * hidden);
+            return new Network(hidden, featureWeights, featureBiases, outputWeights, outputBias, activationMax, scale);
+        }
+    }
+    
+    //Big-endian ints for the header, then the layers as big-endian int16.
+    public void save(Path path) throws IOException {
+        try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))){
+            out.writeInt(MAGIC);
+            out.writeInt(hidden);
+            out.writeInt(outputBias);
+            out.writeInt(activationMax);
+            out.writeInt(scale);
+            writeShorts(out, featureWeights);
+            writeShorts(out, featureBiases);
+            writeShorts(out, outputWeights);
+        }
+    }
+    
+    private static short[] readShorts(DataInputStream in, int count) throws IOException {
+        short[] values = new short[count];
+        for(int i = 0; i < count; i++){
+            values[i] = in.readShort();
+        }
+        return values;
+    }
+    
+    private static void writeShorts(DataOutputStream out, short[] values) throws IOException {
+        for(short value : values){
+            out.writeShort(value);
+        }
+    }
+}
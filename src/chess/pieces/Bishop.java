@@ -15,43 +15,43 @@ public class Bishop extends ChessPiece{
     public boolean[][] possibleMoves() {
         boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
         
-        Position p = new Position(0, 0);
+        Position p;
         
         //nw
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
+        p = Position.of(position.getRow() - 1, position.getColumn() - 1);
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() - 1 , p.getColumn() - 1);
+            p = Position.of(p.getRow() - 1 , p.getColumn() - 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //ne
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
+        p = Position.of(position.getRow() - 1, position.getColumn() + 1);
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() - 1 , p.getColumn() + 1);
+            p = Position.of(p.getRow() - 1 , p.getColumn() + 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //sw
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
+        p = Position.of(position.getRow() + 1, position.getColumn() - 1);
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() + 1 , p.getColumn() - 1);
+            p = Position.of(p.getRow() + 1 , p.getColumn() - 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //se
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
+        p = Position.of(position.getRow() + 1, position.getColumn() + 1);
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setValues(p.getRow() + 1 , p.getColumn() + 1);
+            p = Position.of(p.getRow() + 1 , p.getColumn() + 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
@@ -27,59 +27,59 @@ public class King extends ChessPiece{
     
     public boolean testRookCastling(Position position){
         ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p != null && p instanceof Rook && p.getColor() == getColor() && getMoveCount() == 0; 
+        return p != null && p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
     }
     
     @Override
     public boolean[][] possibleMoves() {
         boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
         
-        Position p = new Position(0, 0);
+        Position p;
         
         //above
-        p.setValues(position.getRow() - 1, position.getColumn());
+        p = Position.of(position.getRow() - 1, position.getColumn());
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //below
-        p.setValues(position.getRow() + 1, position.getColumn());
+        p = Position.of(position.getRow() + 1, position.getColumn());
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //left
-        p.setValues(position.getRow(), position.getColumn() - 1);
+        p = Position.of(position.getRow(), position.getColumn() - 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //right
-        p.setValues(position.getRow(), position.getColumn() + 1);
+        p = Position.of(position.getRow(), position.getColumn() + 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //nw
-        p.setValues(position.getRow() - 1, position.getColumn() - 1);
+        p = Position.of(position.getRow() - 1, position.getColumn() - 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //ne
-        p.setValues(position.getRow() - 1, position.getColumn() + 1);
+        p = Position.of(position.getRow() - 1, position.getColumn() + 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //sw
-        p.setValues(position.getRow() + 1, position.getColumn() - 1);
+        p = Position.of(position.getRow() + 1, position.getColumn() - 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //se
-        p.setValues(position.getRow() + 1, position.getColumn() + 1);
+        p = Position.of(position.getRow() + 1, position.getColumn() + 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
@@ -87,10 +87,10 @@ public class King extends ChessPiece{
         //#Special move
         if(getMoveCount() == 0 && !chessMatch.getCheck()){
             //#Castling kingside rook
-            Position posT1 = new Position(position.getRow(), position.getColumn() + 3);
+            Position posT1 = Position.of(position.getRow(), position.getColumn() + 3);
             if(testRookCastling(posT1)){
-                Position p1 = new Position(position.getRow(), position.getColumn() + 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() + 2);
+                Position p1 = Position.of(position.getRow(), position.getColumn() + 1);
+                Position p2 = Position.of(position.getRow(), position.getColumn() + 2);
                 
                 if(getBoard().piece(p1) == null && getBoard().piece(p2) == null){
                     mat[position.getRow()][position.getColumn() + 2] = true;
@@ -98,11 +98,11 @@ public class King extends ChessPiece{
             }
             
             //#Castling queenside rook
-            Position posT2 = new Position(position.getRow(), position.getColumn() - 4);
+            Position posT2 = Position.of(position.getRow(), position.getColumn() - 4);
             if(testRookCastling(posT2)){
-                Position p1 = new Position(position.getRow(), position.getColumn() - 1);
-                Position p2 = new Position(position.getRow(), position.getColumn() - 2);
-                Position p3 = new Position(position.getRow(), position.getColumn() - 3);
+                Position p1 = Position.of(position.getRow(), position.getColumn() - 1);
+                Position p2 = Position.of(position.getRow(), position.getColumn() - 2);
+                Position p3 = Position.of(position.getRow(), position.getColumn() - 3);
                 
                 if(getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null){
                     mat[position.getRow()][position.getColumn() - 2] = true;
@@ -20,44 +20,44 @@ public class Knight extends ChessPiece {
     public boolean[][] possibleMoves() {
         boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
         
-        Position p = new Position(0, 0);
+        Position p;
         
-        p.setValues(position.getRow() - 2, position.getColumn() + 1);
+        p = Position.of(position.getRow() - 2, position.getColumn() + 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() - 2, position.getColumn() - 1);
+        p = Position.of(position.getRow() - 2, position.getColumn() - 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() + 2, position.getColumn() + 1);
+        p = Position.of(position.getRow() + 2, position.getColumn() + 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() + 2, position.getColumn() - 1);
+        p = Position.of(position.getRow() + 2, position.getColumn() - 1);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() - 1, position.getColumn() - 2);
+        p = Position.of(position.getRow() - 1, position.getColumn() - 2);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() + 1, position.getColumn() - 2);
+        p = Position.of(position.getRow() + 1, position.getColumn() - 2);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() + 1, position.getColumn() + 2);
+        p = Position.of(position.getRow() + 1, position.getColumn() + 2);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
-        p.setValues(position.getRow() - 1, position.getColumn() + 2);
+        p = Position.of(position.getRow() - 1, position.getColumn() + 2);
         if(getBoard().positionExists(p) && canMove(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
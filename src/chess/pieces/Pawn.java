@@ -19,71 +19,71 @@ public class Pawn extends ChessPiece{
     public boolean[][] possibleMoves() {
         boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
         
-        Position p = new Position(0, 0);
+        Position p;
         
         if(getColor() == Color.WHITE){
-            p.setValues(position.getRow() - 1, position.getColumn());
+            p = Position.of(position.getRow() - 1, position.getColumn());
             if(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() - 2, position.getColumn());
-            Position p2 = new Position(position.getRow() - 1, position.getColumn());
+            p = Position.of(position.getRow() - 2, position.getColumn());
+            Position p2 = Position.of(position.getRow() - 1, position.getColumn());
             if(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() - 1, position.getColumn() - 1);
+            p = Position.of(position.getRow() - 1, position.getColumn() - 1);
             if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() - 1, position.getColumn() + 1);
+            p = Position.of(position.getRow() - 1, position.getColumn() + 1);
             if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
             //#Special move En Passant white
             if(position.getRow() == 3){
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
+                Position left = Position.of(position.getRow(), position.getColumn() - 1);
                 if(getBoard().positionExists(left) && isThereAnOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()){
                     mat[left.getRow() - 1][left.getColumn()] = true;
                 }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
+                Position right = Position.of(position.getRow(), position.getColumn() + 1);
                 if(getBoard().positionExists(right) && isThereAnOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()){
                     mat[right.getRow() - 1][right.getColumn()] = true;
                 }
             }
         }
         else{
-            p.setValues(position.getRow() + 1, position.getColumn());
+            p = Position.of(position.getRow() + 1, position.getColumn());
             if(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() + 2, position.getColumn());
-            Position p2 = new Position(position.getRow() + 1, position.getColumn());
+            p = Position.of(position.getRow() + 2, position.getColumn());
+            Position p2 = Position.of(position.getRow() + 1, position.getColumn());
             if(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p) && getBoard().positionExists(p2) && !getBoard().thereIsAPiece(p2) && getMoveCount() == 0){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() + 1, position.getColumn() - 1);
+            p = Position.of(position.getRow() + 1, position.getColumn() - 1);
             if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
-            p.setValues(position.getRow() + 1, position.getColumn() + 1);
+            p = Position.of(position.getRow() + 1, position.getColumn() + 1);
             if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
                 mat[p.getRow()][p.getColumn()] = true;
             }
             
             //#Special move En Passant black
             if(position.getRow() == 4){
-                Position left = new Position(position.getRow(), position.getColumn() - 1);
+                Position left = Position.of(position.getRow(), position.getColumn() - 1);
                 if(getBoard().positionExists(left) && isThereAnOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVulnerable()){
                     mat[left.getRow() + 1][left.getColumn()] = true;
                 }
-                Position right = new Position(position.getRow(), position.getColumn() + 1);
+                Position right = Position.of(position.getRow(), position.getColumn() + 1);
                 if(getBoard().positionExists(right) && isThereAnOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVulnerable()){
                     mat[right.getRow() + 1][right.getColumn()] = true;
                 }
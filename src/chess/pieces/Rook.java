@@ -20,47 +20,47 @@ public class Rook extends ChessPiece{
     public boolean[][] possibleMoves() {
         boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
         
-        Position p = new Position(0, 0);
+        Position p;
         
         //above
-        p.setValues(position.getRow() - 1, position.getColumn());
+        p = Position.of(position.getRow() - 1, position.getColumn());
         
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() - 1);
+            p = Position.of(p.getRow() - 1, p.getColumn());
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
          
         //left
-        p.setValues(position.getRow(), position.getColumn() - 1);
+        p = Position.of(position.getRow(), position.getColumn() - 1);
         
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() - 1);
+            p = Position.of(p.getRow(), p.getColumn() - 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //right
-        p.setValues(position.getRow(), position.getColumn() + 1);
+        p = Position.of(position.getRow(), position.getColumn() + 1);
         
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setColumn(p.getColumn() + 1);
+            p = Position.of(p.getRow(), p.getColumn() + 1);
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
         }
         
         //below
-        p.setValues(position.getRow() + 1, position.getColumn());
+        p = Position.of(position.getRow() + 1, position.getColumn());
         
         while(getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
-            p.setRow(p.getRow() + 1);
+            p = Position.of(p.getRow() + 1, p.getColumn());
         }
         if(getBoard().positionExists(p) && isThereAnOpponentPiece(p)){
             mat[p.getRow()][p.getColumn()] = true;
@@ -0,0 +1,10 @@
+package engine;
+
+//Receives the results of a background analysis, on the analysing thread.
+public interface AnalysisListener {
+    //The opponent's best move if the side to move could pass: what they are threatening.
+    void threat(SearchInfo info);
+    
+    //The best move for the side to move, after each completed depth.
+    void hint(SearchInfo info);
+}
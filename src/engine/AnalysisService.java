@@ -0,0 +1,181 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Moves;
+import chess.VirtualThreads;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/*
+Analyses positions in the background while a player thinks: first what the opponent threatens, then
+the best move for the side to move, deepening until the budget runs out. Each analysis works on a copy
+of the match, so the match itself stays with its own thread, and stops as soon as it is cancelled.
+Analyses run on virtual threads when the JVM has them. At most "concurrency" of them search at the
+same time and each one is bounded by the budget, so many matches can ask for hints without the
+searches taking over the machine.
+*/
+public class AnalysisService implements AutoCloseable {
+    private static final int THREAT_DEPTH = 3;
+    private static final int TABLE_BITS = 16;
+    
+    private final SearchLimits budget;
+    private final Semaphore permits;
+    private final ExecutorService executor = newAnalysisExecutor();
+    private final Queue<TranspositionTable> tables = new ConcurrentLinkedQueue<>(); //At most one per permit
+    private final Set<Analysis> running = ConcurrentHashMap.newKeySet();
+    
+    public AnalysisService(int concurrency, SearchLimits budget){
+        this.permits = new Semaphore(concurrency);
+        this.budget = budget;
+    }
+    
+    //Starts analysing the current position of the match. Call it from the thread that owns the match.
+    public Analysis analyse(ChessMatch chessMatch, AnalysisListener listener){
+        Analysis analysis = new Analysis(chessMatch.copy(), listener);
+        running.add(analysis);
+        executor.execute(analysis::run);
+        return analysis;
+    }
+    
+    @Override
+    public void close(){
+        for(Analysis analysis : running){
+            analysis.cancel();
+        }
+        executor.shutdown();
+    }
+    
+    public class Analysis {
+        private final ChessMatch position;
+        private final AnalysisListener listener;
+        private final CompletableFuture<SearchInfo> result = new CompletableFuture<>();
+        private boolean cancelled; //Guarded by this
+        private Search search; //The one running, guarded by this
+    
+        private Analysis(ChessMatch position, AnalysisListener listener){
+            this.position = position;
+            this.listener = listener;
+        }
+    
+        //Stops the analysis; a search in progress notices within a few hundred nodes. The listener hears nothing after this returns.
+        public synchronized void cancel(){
+            cancelled = true;
+            if(search != null){
+                search.stop();
+            }
+        }
+    
+        public synchronized boolean isCancelled(){
+            return cancelled;
+        }
+    
+        //Completes with the deepest hint once the budget is used up, or the last one reached when cancelled.
+        public CompletableFuture<SearchInfo> getResult(){
+            return result;
+        }
+    
+        private void run(){
+            SearchInfo best = null;
+            boolean acquired = false;
+            TranspositionTable table = null;
+            try{
+                permits.acquire();
+                acquired = true;
+                table = tables.poll();
+                if(table == null){
+                    table = new TranspositionTable(TABLE_BITS);
+                }
+                else{
+                    table.clear();
+                }
+    
+                ChessMatch passed = position.getCheck() ? null : passedPosition();
+                Search threatSearch = (passed == null) ? null : begin(passed, table);
+                if(threatSearch != null){
+                    SearchInfo threat = threatSearch.search(new SearchLimits(Math.min(THREAT_DEPTH, depthBudget()), budget.getNodes() / 4, budget.getTimeMillis() / 4), null);
+                    if(threat.getBestMove() != Moves.NONE){
+                        reportThreat(threat);
+                    }
+                    table.clear(); //Same pieces, other side to move: the entries would be wrong
+                }
+    
+                Search hintSearch = begin(position, table);
+                if(hintSearch != null){
+                    best = hintSearch.search(budget, this::reportHint);
+                }
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            catch(RuntimeException e){
+                result.completeExceptionally(e);
+            }
+            finally{
+                if(table != null){
+                    tables.add(table);
+                }
+                if(acquired){
+                    permits.release();
+                }
+                running.remove(this);
+                result.complete(best);
+            }
+        }
+    
+        //Checked and reported under the lock cancel() takes, so a result of the old position can't show up after it.
+        private synchronized void reportThreat(SearchInfo info){
+            if(!cancelled){
+                listener.threat(info);
+            }
+        }
+    
+        private synchronized void reportHint(SearchInfo info){
+            if(!cancelled){
+                listener.hint(info);
+            }
+        }
+    
+        private synchronized Search begin(ChessMatch chessMatch, TranspositionTable table){
+            search = cancelled ? null : new Search(chessMatch, table);
+            return search;
+        }
+    
+        private int depthBudget(){
+            return (budget.getDepth() > 0) ? budget.getDepth() : Search.MAX_PLY;
+        }
+    
+        //The same position with the other side to move, as if the side to move had passed.
+        private ChessMatch passedPosition(){
+            String[] fields = Fen.of(position).split(" ");
+            fields[1] = fields[1].equals("w") ? "b" : "w";
+            fields[3] = "-";
+            try{
+                return Fen.parse(String.join(" ", fields));
+            }
+            catch(ChessException e){
+                return null;
+            }
+        }
+    }
+    
+    //Virtual threads when the JVM has them, otherwise pooled daemon threads.
+    private static ExecutorService newAnalysisExecutor(){
+        ExecutorService executor = VirtualThreads.newExecutor();
+        if(executor != null){
+            return executor;
+        }
+        return Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
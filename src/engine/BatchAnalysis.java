@@ -0,0 +1,162 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.DrawReason;
+import chess.Fen;
+import chess.Moves;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/*
+Analyses a file of positions, one FEN per line, and writes one tab separated line per position:
+the FEN, the number of legal moves, the status (normal, check, checkmate, stalemate, draw or invalid),
+the best move and its score at the given depth. Depth 0 skips the search.
+The input is read in chunks that are split across a work-stealing pool while the previous chunk is
+written out, so the output keeps the input order. Every worker thread has its own match, search and
+transposition table, so nothing is shared between positions being analysed at the same time.
+Usage: BatchAnalysis input output [depth] [threads]
+*/
+public class BatchAnalysis {
+    private static final int CHUNK = 1024; //Positions read at a time
+    private static final int SPLIT = 16; //Positions below which a task stops splitting
+    private static final int IN_FLIGHT = 4; //Chunks being analysed while the oldest one is written
+    
+    private static final ThreadLocal<Worker> WORKER = ThreadLocal.withInitial(Worker::new);
+    
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("Usage: BatchAnalysis input output [depth] [threads]");
+            System.exit(1);
+        }
+        int depth = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+        int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+    
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long count = 0;
+        long start = System.nanoTime();
+        try(BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+                BufferedWriter out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)){
+            ArrayDeque<Chunk> pending = new ArrayDeque<>();
+            Chunk next;
+            while((next = readChunk(in, depth)) != null){
+                pool.execute(next);
+                pending.add(next);
+                if(pending.size() >= IN_FLIGHT){
+                    count += write(pending.poll(), out);
+                }
+            }
+            while(!pending.isEmpty()){
+                count += write(pending.poll(), out);
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d positions in %.1f s, %.0f positions/sec (depth %d, %d threads)%n", count, seconds, count / seconds, depth, threads);
+    }
+    
+    private static Chunk readChunk(BufferedReader in, int depth) throws IOException {
+        List<String> fens = new ArrayList<>(CHUNK);
+        String line;
+        while(fens.size() < CHUNK && (line = in.readLine()) != null){
+            line = line.trim();
+            if(!line.isEmpty() && !line.startsWith("#")){
+                fens.add(line);
+            }
+        }
+        return fens.isEmpty() ? null : new Chunk(fens.toArray(new String[0]), new String[fens.size()], 0, fens.size(), depth);
+    }
+    
+    private static int write(Chunk chunk, BufferedWriter out) throws IOException {
+        chunk.join();
+        for(String result : chunk.results){
+            out.write(result);
+            out.newLine();
+        }
+        return chunk.results.length;
+    }
+    
+    //Splits its range in halves so idle workers can steal the other half.
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+    
+        private final String[] fens;
+        private final String[] results;
+        private final int from;
+        private final int to;
+        private final int depth;
+    
+        Chunk(String[] fens, String[] results, int from, int to, int depth){
+            this.fens = fens;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+    
+        @Override
+        protected void compute(){
+            if(to - from <= SPLIT){
+                Worker worker = WORKER.get();
+                for(int i = from; i < to; i++){
+                    results[i] = worker.analyse(fens[i], depth);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new Chunk(fens, results, from, middle, depth), new Chunk(fens, results, middle, to, depth));
+        }
+    }
+    
+    private static class Worker {
+        private final ChessMatch chessMatch = new ChessMatch();
+        private final TranspositionTable table = new TranspositionTable(16);
+        private final Search search = new Search(chessMatch, table);
+        private final int[] moves = new int[256];
+    
+        String analyse(String fen, int depth){
+            try{
+                Fen.load(fen, chessMatch);
+            }
+            catch(ChessException e){
+                return fen + "\t-\tinvalid\t-\t-";
+            }
+    
+            int legal = chessMatch.getCheckmate() ? 0 : chessMatch.generateLegalMoves(moves);
+            String status;
+            if(chessMatch.getCheckmate()){
+                status = "checkmate";
+            }
+            else if(chessMatch.getDrawReason() == DrawReason.STALEMATE){
+                status = "stalemate";
+            }
+            else if(chessMatch.getDraw()){
+                status = "draw";
+            }
+            else{
+                status = chessMatch.getCheck() ? "check" : "normal";
+            }
+            if(depth <= 0 || legal == 0){
+                return fen + "\t" + legal + "\t" + status + "\t-\t-";
+            }
+    
+            table.clear(); //Results mustn't depend on which positions the worker happened to see before
+            SearchInfo info = search.search(SearchLimits.depth(depth), null);
+            String score = info.isMate() ? "mate " + info.getMateIn() : "cp " + info.getScore();
+            return fen + "\t" + legal + "\t" + status + "\t" + Moves.toString(info.getBestMove()) + "\t" + score;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceCode;
+import chess.nnue.Accumulator;
+import chess.nnue.Network;
+
+/*
+Material plus piece-square tables, in centipawns from the point of view of the player to move, or
+the match's network when it has one (see ChessMatch.setNetwork).
+*/
+public final class Evaluation {
+    //Indexed by piece type
+    static final int[] VALUES = {0, 100, 320, 330, 500, 900, 0};
+    
+    //From white's side, a8 first. Black uses the mirrored square.
+    private static final int[][] TABLES = {
+        {},
+        { //Pawn
+             0,  0,  0,  0,  0,  0,  0,  0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+             5,  5, 10, 25, 25, 10,  5,  5,
+             0,  0,  0, 20, 20,  0,  0,  0,
+             5, -5,-10,  0,  0,-10, -5,  5,
+             5, 10, 10,-20,-20, 10, 10,  5,
+             0,  0,  0,  0,  0,  0,  0,  0
+        },
+        { //Knight
+            -50,-40,-30,-30,-30,-30,-40,-50,
+            -40,-20,  0,  0,  0,  0,-20,-40,
+            -30,  0, 10, 15, 15, 10,  0,-30,
+            -30,  5, 15, 20, 20, 15,  5,-30,
+            -30,  0, 15, 20, 20, 15,  0,-30,
+            -30,  5, 10, 15, 15, 10,  5,-30,
+            -40,-20,  0,  5,  5,  0,-20,-40,
+            -50,-40,-30,-30,-30,-30,-40,-50
+        },
+        { //Bishop
+            -20,-10,-10,-10,-10,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5, 10, 10,  5,  0,-10,
+            -10,  5,  5, 10, 10,  5,  5,-10,
+            -10,  0, 10, 10, 10, 10,  0,-10,
+            -10, 10, 10, 10, 10, 10, 10,-10,
+            -10,  5,  0,  0,  0,  0,  5,-10,
+            -20,-10,-10,-10,-10,-10,-10,-20
+        },
+        { //Rook
+             0,  0,  0,  0,  0,  0,  0,  0,
+             5, 10, 10, 10, 10, 10, 10,  5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+            -5,  0,  0,  0,  0,  0,  0, -5,
+             0,  0,  0,  5,  5,  0,  0,  0
+        },
+        { //Queen
+            -20,-10,-10, -5, -5,-10,-10,-20,
+            -10,  0,  0,  0,  0,  0,  0,-10,
+            -10,  0,  5,  5,  5,  5,  0,-10,
+             -5,  0,  5,  5,  5,  5,  0, -5,
+              0,  0,  5,  5,  5,  5,  0, -5,
+            -10,  5,  5,  5,  5,  5,  0,-10,
+            -10,  0,  5,  0,  0,  0,  0,-10,
+            -20,-10,-10, -5, -5,-10,-10,-20
+        },
+        { //King
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -30,-40,-40,-50,-50,-40,-40,-30,
+            -20,-30,-30,-40,-40,-30,-30,-20,
+            -10,-20,-20,-20,-20,-20,-20,-10,
+             20, 20,  0,  0,  0,  0, 20, 20,
+             20, 30, 10,  0,  0, 10, 30, 20
+        }
+    };
+    
+    private Evaluation(){
+    }
+    
+    public static int evaluate(ChessMatch chessMatch){
+        Accumulator accumulator = chessMatch.getAccumulator();
+        if(accumulator != null){
+            return accumulator.evaluate(chessMatch.getCurrentPlayer());
+        }
+        int score = 0;
+        for(int square = 0; square < 64; square++){
+            int code = chessMatch.pieceAt(square);
+            if(code != PieceCode.EMPTY){
+                score += (PieceCode.color(code) == Color.WHITE) ? value(code, square) : -value(code, square ^ 56);
+            }
+        }
+        return (chessMatch.getCurrentPlayer() == Color.WHITE) ? score : -score;
+    }
+    
+    //Material alone, from the point of view of the player to move.
+    public static int material(ChessMatch chessMatch){
+        int score = 0;
+        for(int square = 0; square < 64; square++){
+            int code = chessMatch.pieceAt(square);
+            score += (PieceCode.color(code) == Color.WHITE) ? VALUES[PieceCode.type(code)] : -VALUES[PieceCode.type(code)];
+        }
+        return (chessMatch.getCurrentPlayer() == Color.WHITE) ? score : -score;
+    }
+    
+    /*
+    A network that computes exactly what the tables do, for when there is no trained one and to check
+    the incremental updates against. Each perspective has GROUPS neurons adding up its own pieces and
+    GROUPS adding up the opponent's. Neuron j passes only the part of a sum between j and j + 1 times
+    the activation ceiling, so together the clipped neurons pass the whole sum on.
+    */
+    public static Network network(){
+        final int groups = 32; //Sums up to 32 * 255 centipawns
+        final int ceiling = 255;
+        final int offset = 64; //Keeps a lone king's negative sum above zero
+        int hidden = 2 * groups;
+        short[] featureWeights = new short[Network.FEATURES * hidden];
+        short[] featureBiases = new short[hidden];
+        short[] outputWeights = new short[2 * hidden];
+        for(int feature = 0; feature < Network.FEATURES; feature++){
+            boolean own = feature < Network.FEATURES / 2;
+            int type = (feature % (Network.FEATURES / 2)) / 64 + 1;
+            int square = feature % 64; //As the perspective player sees it; the opponent's tables are mirrored
+            int value = VALUES[type] + TABLES[type][own ? square : square ^ 56];
+            for(int j = 0; j < groups; j++){
+                featureWeights[feature * hidden + (own ? j : groups + j)] = (short) value;
+            }
+        }
+        for(int j = 0; j < groups; j++){
+            featureBiases[j] = (short) (offset - ceiling * j);
+            featureBiases[groups + j] = (short) (offset - ceiling * j);
+            outputWeights[j] = 1; //Side to move: own minus opponent's
+            outputWeights[groups + j] = -1;
+            outputWeights[hidden + j] = -1; //Other side: the same seen from there, negated
+            outputWeights[hidden + groups + j] = 1;
+        }
+        return new Network(hidden, featureWeights, featureBiases, outputWeights, 0, ceiling, 2);
+    }
+    
+    private static int value(int code, int square){
+        int type = PieceCode.type(code);
+        return VALUES[type] + TABLES[type][square];
+    }
+}
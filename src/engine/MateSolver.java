@@ -0,0 +1,345 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Moves;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+Proves or disproves a forced mate in N moves with depth-first proof-number search (df-pn). The
+attacker only tries checks and the defender only has evasions, so the tree stays narrow, and the
+search goes where the proof looks cheapest instead of going through every move to a fixed depth.
+N is tried from 1 upwards, so the first proof found is the shortest mate. Proof and disproof numbers
+are kept in a bounded ProofTable; the plies left are part of every entry, which also keeps the graph
+free of cycles. Draws other than stalemate are ignored, as they usually are in puzzles.
+A MateSolver isn't thread safe; give every thread its own, as main does.
+Usage: MateSolver input [moves] [threads] [nodes per puzzle]
+*/
+public class MateSolver {
+    public static final int MAX_MATE = 16; //Moves
+    
+    private static final int MAX_PLY = 2 * MAX_MATE;
+    private static final int MAX_MOVES = 256;
+    private static final int INFINITY = ProofTable.INFINITY;
+    
+    private final ProofTable table;
+    private ChessMatch chessMatch;
+    
+    //Per ply: the moves and what is known of the positions they lead to.
+    private final int[][] moveLists = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] childPhis = new int[MAX_PLY + 1][MAX_MOVES];
+    private final int[][] childDeltas = new int[MAX_PLY + 1][MAX_MOVES];
+    
+    private int excludedMove; //Root move left out, e.g. to see whether a mate is the only one
+    private long nodes;
+    private long nodeLimit;
+    private boolean stopped;
+    private int lastPhi; //Numbers of the node mid() returned from
+    private int lastDelta;
+    
+    public MateSolver(){
+        this(new ProofTable(18));
+    }
+    
+    public MateSolver(ProofTable table){
+        this.table = table;
+    }
+    
+    public enum Status {
+        MATE,
+        NO_MATE,
+        UNKNOWN //The node limit came first
+    }
+    
+    public static class Result {
+        private final Status status;
+        private final int mateIn;
+        private final int[] pv;
+        private final long nodes;
+        private final long timeMillis;
+    
+        Result(Status status, int mateIn, int[] pv, long nodes, long timeMillis){
+            this.status = status;
+            this.mateIn = mateIn;
+            this.pv = pv;
+            this.nodes = nodes;
+            this.timeMillis = timeMillis;
+        }
+    
+        public Status getStatus(){
+            return status;
+        }
+    
+        //Moves of the attacker up to and including the mate, 0 unless the status is MATE.
+        public int getMateIn(){
+            return mateIn;
+        }
+    
+        //The mating line, with the longest defence.
+        public int[] getPv(){
+            return pv.clone();
+        }
+    
+        public long getNodes(){
+            return nodes;
+        }
+    
+        public long getTimeMillis(){
+            return timeMillis;
+        }
+    
+        public String pvString(){
+            StringBuilder sb = new StringBuilder();
+            for(int move : pv){
+                if(sb.length() > 0){
+                    sb.append(' ');
+                }
+                sb.append(Moves.toString(move));
+            }
+            return sb.toString();
+        }
+    }
+    
+    /*
+    Looks for a mate in at most "moves" moves by the side to move, giving up after nodeLimit
+    positions (0 for no limit). The match is left as it was found; the table is cleared first, so
+    results don't depend on the positions solved before.
+    */
+    public Result solve(ChessMatch chessMatch, int moves, long nodeLimit){
+        return solve(chessMatch, moves, nodeLimit, Moves.NONE);
+    }
+    
+    //The same, without trying excludedMove as the first move.
+    public Result solve(ChessMatch chessMatch, int moves, long nodeLimit, int excludedMove){
+        long start = System.currentTimeMillis();
+        this.chessMatch = chessMatch;
+        this.excludedMove = excludedMove;
+        this.nodeLimit = nodeLimit;
+        nodes = 0;
+        stopped = false;
+        table.clear();
+        try{
+            if(chessMatch.getCheckmate() || chessMatch.getDraw()){
+                return new Result(Status.NO_MATE, 0, new int[0], 0, 0); //Nothing left to play for
+            }
+            for(int n = 1; n <= Math.min(moves, MAX_MATE); n++){
+                mid(0, 2 * n - 1, INFINITY, INFINITY);
+                if(stopped){
+                    return new Result(Status.UNKNOWN, 0, new int[0], nodes, System.currentTimeMillis() - start);
+                }
+                if(lastPhi == 0){
+                    int[] pv = principalVariation(2 * n - 1);
+                    return new Result(Status.MATE, n, pv, nodes, System.currentTimeMillis() - start);
+                }
+            }
+            return new Result(Status.NO_MATE, 0, new int[0], nodes, System.currentTimeMillis() - start);
+        }
+        finally{
+            this.chessMatch = null;
+        }
+    }
+    
+    /*
+    Searches the current position until its phi reaches thPhi or its delta reaches thDelta, and leaves
+    its numbers in lastPhi and lastDelta. A node's phi is the smallest delta of its children and its
+    delta the sum of their phis; the child with the smallest delta is searched, with thresholds that
+    send the search back up as soon as another child looks cheaper.
+    */
+    private void mid(int ply, int pliesLeft, int thPhi, int thDelta){
+        long key = chessMatch.getPositionHash();
+        boolean excluding = ply == 0 && excludedMove != Moves.NONE; //The root's numbers then aren't the position's
+        int slot = excluding ? -1 : table.probe(key, pliesLeft);
+        if(slot >= 0 && (table.phi(slot) >= thPhi || table.delta(slot) >= thDelta)){
+            lastPhi = table.phi(slot);
+            lastDelta = table.delta(slot);
+            return;
+        }
+        long startNodes = nodes;
+        if(++nodes > nodeLimit && nodeLimit > 0){
+            stopped = true;
+        }
+        if(stopped){
+            return;
+        }
+    
+        boolean attacker = (pliesLeft & 1) == 1;
+        int[] moves = moveLists[ply];
+        int count;
+        if(pliesLeft == 0){
+            count = chessMatch.canMove() ? 1 : 0; //Only mate or not matters now
+        }
+        else{
+            count = attacker ? chessMatch.generateLegalChecks(moves) : chessMatch.generateLegalMoves(moves);
+            count = excluding ? exclude(moves, count) : count;
+        }
+        if(count == 0 || pliesLeft == 0){
+            boolean lost = attacker || (count == 0 && chessMatch.getCheck()); //No check left, or mated; else stalemate or escaped
+            lastPhi = lost ? INFINITY : 0;
+            lastDelta = lost ? 0 : INFINITY;
+            if(!excluding){
+                table.store(key, pliesLeft, lastPhi, lastDelta, nodes - startNodes);
+            }
+            return;
+        }
+    
+        int[] phis = childPhis[ply];
+        int[] deltas = childDeltas[ply];
+        Arrays.fill(phis, 0, count, 1);
+        Arrays.fill(deltas, 0, count, 1);
+    
+        while(true){
+            int phi = INFINITY;
+            int delta = 0;
+            int secondDelta = INFINITY;
+            int best = 0;
+            for(int i = 0; i < count; i++){
+                if(deltas[i] < phi){
+                    secondDelta = phi;
+                    phi = deltas[i];
+                    best = i;
+                }
+                else if(deltas[i] < secondDelta){
+                    secondDelta = deltas[i];
+                }
+                delta = Math.min(INFINITY, delta + phis[i]);
+            }
+            if(phi >= thPhi || delta >= thDelta || stopped){
+                lastPhi = phi;
+                lastDelta = delta;
+                if(!stopped && !excluding){
+                    table.store(key, pliesLeft, phi, delta, nodes - startNodes);
+                }
+                return;
+            }
+    
+            chessMatch.pushMove(moves[best]);
+            mid(ply + 1, pliesLeft - 1, thDelta - delta + phis[best], Math.min(thPhi, secondDelta + 1));
+            chessMatch.popMove();
+            phis[best] = lastPhi;
+            deltas[best] = lastDelta;
+        }
+    }
+    
+    /*
+    Walks down a proven position: the attacker plays a move that mates soonest, the defender the reply
+    that puts the mate off longest. Lengths that the search didn't need are worked out here.
+    */
+    private int[] principalVariation(int pliesLeft){
+        int[] pv = new int[pliesLeft];
+        int length = 0;
+        for(; pliesLeft > 0; pliesLeft--){
+            boolean attacker = (pliesLeft & 1) == 1;
+            int[] moves = moveLists[length];
+            int count = attacker ? chessMatch.generateLegalChecks(moves) : chessMatch.generateLegalMoves(moves);
+            count = (length == 0 && excludedMove != Moves.NONE) ? exclude(moves, count) : count;
+            int chosen = Moves.NONE;
+            int chosenPlies = attacker ? Integer.MAX_VALUE : -1;
+            for(int i = 0; i < count && chosenPlies != 0; i++){
+                chessMatch.pushMove(moves[i]);
+                int plies = pliesToMate(length + 1, pliesLeft - 1);
+                chessMatch.popMove();
+                if(plies >= 0 && (attacker ? plies < chosenPlies : plies > chosenPlies)){
+                    chosen = moves[i];
+                    chosenPlies = plies;
+                }
+            }
+            if(chosen == Moves.NONE){
+                break; //Mate on the board, or the node limit cut a search short
+            }
+            pv[length++] = chosen;
+            chessMatch.pushMove(chosen);
+        }
+        for(int i = 0; i < length; i++){
+            chessMatch.popMove();
+        }
+        return Arrays.copyOf(pv, length);
+    }
+    
+    //Fewest plies, up to most, in which the attacker mates from the current position, or -1 if not in time.
+    private int pliesToMate(int ply, int most){
+        boolean attacker = (most & 1) == 1;
+        for(int plies = attacker ? 1 : 0; plies <= most && !stopped; plies += 2){
+            mid(ply, plies, INFINITY, INFINITY); //Straight from the table when it is already known
+            if(!stopped && (attacker ? lastPhi : lastDelta) == 0){
+                return plies;
+            }
+        }
+        return -1;
+    }
+    
+    private int exclude(int[] moves, int count){
+        for(int i = 0; i < count; i++){
+            if(moves[i] == excludedMove){
+                moves[i] = moves[--count];
+                break;
+            }
+        }
+        return count;
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if(args.length < 1){
+            System.err.println("Usage: MateSolver input [moves] [threads] [nodes per puzzle]");
+            System.exit(1);
+        }
+        int moves = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long nodeLimit = (args.length > 3) ? Long.parseLong(args[3]) : 1000000;
+    
+        List<String> fens = new ArrayList<>();
+        for(String line : Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8)){
+            line = line.trim();
+            if(!line.isEmpty() && !line.startsWith("#")){
+                fens.add(line);
+            }
+        }
+    
+        //Every thread has its own solver and table, so puzzles solved at the same time share nothing.
+        ThreadLocal<MateSolver> solvers = ThreadLocal.withInitial(() -> new MateSolver(new ProofTable(16)));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        int mates = 0;
+        try{
+            List<Future<Result>> results = new ArrayList<>(fens.size());
+            for(String fen : fens){
+                results.add(executor.submit(() -> {
+                    try{
+                        return solvers.get().solve(Fen.parse(fen), moves, nodeLimit);
+                    }
+                    catch(ChessException e){
+                        return null;
+                    }
+                }));
+            }
+            for(int i = 0; i < fens.size(); i++){
+                Result result = results.get(i).get();
+                if(result == null){
+                    System.out.println(fens.get(i) + "\tinvalid");
+                    continue;
+                }
+                String status = (result.getStatus() == Status.MATE) ? "mate " + result.getMateIn() : result.getStatus().toString().toLowerCase().replace('_', ' ');
+                System.out.println(fens.get(i) + "\t" + status + "\t" + result.pvString() + "\t" + result.getNodes() + " nodes\t" + result.getTimeMillis() + " ms");
+                if(result.getStatus() == Status.MATE){
+                    mates++;
+                }
+            }
+        }
+        finally{
+            executor.shutdown();
+        }
+    
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d of %d puzzles mate in %d or less, %.1f s, %.1f puzzles/sec (%d threads)%n", mates, fens.size(), moves, seconds, fens.size() / seconds, threads);
+    }
+}
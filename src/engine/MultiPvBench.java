@@ -0,0 +1,56 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Fen;
+import java.util.List;
+
+/*
+What multi-PV costs compared to a single line. Searches a few positions to a fixed depth with 1 line
+and with N lines, each from an empty table, and prints the nodes and time of both and their ratio.
+Usage: MultiPvBench [lines] [depth]
+*/
+public class MultiPvBench {
+    private static final String[] POSITIONS = {
+        Fen.START,
+        "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3",
+        "r1bqk2r/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQK2R w KQkq - 1 5",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+    
+    public static void main(String[] args){
+        int lines = (args.length > 0) ? Integer.parseInt(args[0]) : 4;
+        int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        SearchLimits limits = new SearchLimits(depth, 0, 0);
+    
+        long singleNodes = 0;
+        long singleTime = 0;
+        long multiNodes = 0;
+        long multiTime = 0;
+        System.out.printf("%-72s %10s %8s %10s %8s%n", "position", "1 line", "ms", lines + " lines", "ms");
+        for(String fen : POSITIONS){
+            ChessMatch chessMatch = Fen.parse(fen);
+    
+            Search single = new Search(chessMatch, new TranspositionTable(18));
+            long start = System.nanoTime();
+            single.search(limits, null);
+            long time = (System.nanoTime() - start) / 1000000;
+            singleNodes += single.getNodes();
+            singleTime += time;
+    
+            Search multi = new Search(chessMatch, new TranspositionTable(18));
+            start = System.nanoTime();
+            List<SearchInfo> found = multi.searchLines(limits, lines, null);
+            long multiMillis = (System.nanoTime() - start) / 1000000;
+            multiNodes += multi.getNodes();
+            multiTime += multiMillis;
+    
+            System.out.printf("%-72s %10d %8d %10d %8d%n", fen, single.getNodes(), time, multi.getNodes(), multiMillis);
+            for(SearchInfo info : found){
+                System.out.printf("    %d. %6d  %s%n", info.getLine(), info.getScore(), info.pvString());
+            }
+        }
+        System.out.printf("total: %d lines cost %.2fx the nodes and %.2fx the time of 1 line%n", lines,
+                multiNodes / (double) Math.max(1, singleNodes), multiTime / (double) Math.max(1, singleTime));
+    }
+}
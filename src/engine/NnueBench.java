@@ -0,0 +1,134 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Fen;
+import chess.nnue.Network;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/*
+What network evaluation costs next to the piece-square tables. Collects positions from random games,
+checks that the built-in network agrees with the tables and that the accumulators kept up move by move
+match ones built from scratch, then prints evaluations per second: the tables, the network's output
+layer over a current accumulator, a full accumulator refresh, and the extra cost of the updates in
+pushMove/popMove. Runs with the built-in network and with a random one of the given hidden size.
+Usage: NnueBench [positions] [hidden]
+*/
+public class NnueBench {
+    private static final long MEASURE_NANOS = 1000000000L;
+    
+    public static void main(String[] args){
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+        int wideHidden = (args.length > 1) ? Integer.parseInt(args[1]) : 256;
+        Network builtIn = Evaluation.network();
+        Network wide = randomNetwork(wideHidden, new Random(1));
+    
+        //Random games played with the network on, checking the accumulator after every move.
+        List<ChessMatch> positions = new ArrayList<>(count);
+        List<Integer> replies = new ArrayList<>(count);
+        Random random = new Random(7);
+        int[] moves = new int[256];
+        int mismatches = 0;
+        int disagreements = 0;
+        while(positions.size() < count){
+            ChessMatch game = new ChessMatch();
+            game.setNetwork(builtIn);
+            for(int ply = 0; ply < 120 && positions.size() < count; ply++){
+                int legal = game.generateLegalMoves(moves);
+                if(legal == 0 || game.getDraw()){
+                    break;
+                }
+                game.pushMove(moves[random.nextInt(legal)]);
+    
+                ChessMatch position = Fen.parse(Fen.of(game));
+                position.setNetwork(builtIn);
+                mismatches += position.getAccumulator().sameAs(game.getAccumulator()) ? 0 : 1;
+                int network = Evaluation.evaluate(position);
+                position.setNetwork(null);
+                disagreements += (network == Evaluation.evaluate(position)) ? 0 : 1;
+                if(position.generateLegalMoves(moves) > 0){
+                    positions.add(position);
+                    replies.add(moves[0]);
+                }
+            }
+        }
+        System.out.printf("%d positions: %d incremental accumulators differ from a refresh, %d network evaluations differ from the tables%n",
+                count, mismatches, disagreements);
+    
+        measure("tables", positions, match -> Evaluation.evaluate(match));
+        for(Network network : new Network[] {builtIn, wide}){
+            String name = "hidden " + network.getHidden();
+            for(ChessMatch match : positions){
+                match.setNetwork(network);
+            }
+            measure(name + ", output layer", positions, match -> match.getAccumulator().evaluate(match.getCurrentPlayer()));
+            measure(name + ", refresh + output", positions, match -> {
+                match.setNetwork(network);
+                return match.getAccumulator().evaluate(match.getCurrentPlayer());
+            });
+            measure(name + ", pushMove + popMove", positions, new MoveMaker(positions, replies));
+        }
+        for(ChessMatch match : positions){
+            match.setNetwork(null);
+        }
+        measure("no network, pushMove + popMove", positions, new MoveMaker(positions, replies));
+    }
+    
+    private interface Evaluator {
+        int apply(ChessMatch match);
+    }
+    
+    //Plays a legal move in each position and takes it back.
+    private static class MoveMaker implements Evaluator {
+        private final List<ChessMatch> positions;
+        private final List<Integer> replies;
+        private int next;
+    
+        MoveMaker(List<ChessMatch> positions, List<Integer> replies){
+            this.positions = positions;
+            this.replies = replies;
+        }
+    
+        @Override
+        public int apply(ChessMatch match){
+            match.pushMove(replies.get(next));
+            match.popMove();
+            next = (next + 1) % positions.size();
+            return next;
+        }
+    }
+    
+    private static void measure(String name, List<ChessMatch> positions, Evaluator evaluator){
+        long sink = 0;
+        for(int warmup = 0; warmup < 3; warmup++){
+            for(ChessMatch match : positions){
+                sink += evaluator.apply(match);
+            }
+        }
+        long done = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do{
+            for(ChessMatch match : positions){
+                sink += evaluator.apply(match);
+            }
+            done += positions.size();
+            elapsed = System.nanoTime() - start;
+        } while(elapsed < MEASURE_NANOS);
+        System.out.printf("%-38s %12.0f per second (%d)%n", name, done * 1e9 / elapsed, sink & 1);
+    }
+    
+    //Small random weights, so the int16 sums stay in range; only the speed of such a network means anything.
+    private static Network randomNetwork(int hidden, Random random){
+        short[] featureWeights = new short[Network.FEATURES * hidden];
+        for(int i = 0; i < featureWeights.length; i++){
+            featureWeights[i] = (short) (random.nextInt(17) - 8);
+        }
+        short[] outputWeights = new short[2 * hidden];
+        for(int i = 0; i < outputWeights.length; i++){
+            outputWeights[i] = (short) (random.nextInt(17) - 8);
+        }
+        return new Network(hidden, featureWeights, new short[hidden], outputWeights, 0, 127, 64);
+    }
+}
@@ -0,0 +1,11 @@
+package engine;
+
+import chess.ChessMatch;
+
+//Picks moves for one side in a Tournament. A player is only used by one game, so it may keep state between moves.
+public interface Player {
+    String getName();
+    
+    //A legal packed move for the side to move, leaving the match as it was. remainingMillis is 0 when the game has no clock.
+    int chooseMove(ChessMatch chessMatch, long remainingMillis, long incrementMillis);
+}
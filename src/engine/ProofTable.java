@@ -0,0 +1,88 @@
+package engine;
+
+import java.util.Arrays;
+
+/*
+Fixed size table of proof and disproof numbers for MateSolver, in buckets of two entries. A new entry
+replaces the one that took less work to compute, so the results of big subtrees stay. Kept as parallel
+arrays so that storing an entry never allocates.
+Numbers are from the side to move's point of view: phi 0 means it has won, delta 0 that it has lost.
+*/
+public class ProofTable {
+    static final int INFINITY = Integer.MAX_VALUE / 2;
+    
+    private final long[] keys;
+    private final int[] phis;
+    private final int[] deltas;
+    private final byte[] remaining; //Plies left to mate in, part of the key
+    private final int[] works; //Nodes searched to get the numbers
+    private final int mask;
+    
+    public ProofTable(int sizeBits){
+        int size = 1 << Math.max(1, sizeBits);
+        keys = new long[size];
+        phis = new int[size];
+        deltas = new int[size];
+        remaining = new byte[size];
+        works = new int[size];
+        mask = size - 2;
+    }
+    
+    public void clear(){
+        Arrays.fill(keys, 0L);
+        Arrays.fill(works, 0);
+    }
+    
+    private int index(long key){
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+    
+    /*
+    Slot of the key with the same plies left, or -1 when the table doesn't have it. A result solved with
+    other plies left is used when it still holds: a mate found in fewer plies is also a mate with more,
+    and a defence that holds for more plies also holds for fewer. The attacker moves when the plies left are odd.
+    */
+    int probe(long key, int pliesLeft){
+        int i = index(key);
+        int found = -1;
+        for(int slot = i; slot < i + 2; slot++){
+            if(keys[slot] != key){
+                continue;
+            }
+            if(remaining[slot] == pliesLeft){
+                return slot;
+            }
+            boolean attacker = (pliesLeft & 1) == 1;
+            boolean attackerWon = attacker ? phis[slot] == 0 : deltas[slot] == 0;
+            boolean defenderWon = attacker ? deltas[slot] == 0 : phis[slot] == 0;
+            if((attackerWon && remaining[slot] <= pliesLeft) || (defenderWon && remaining[slot] >= pliesLeft)){
+                found = slot;
+            }
+        }
+        return found;
+    }
+    
+    int phi(int slot){
+        return phis[slot];
+    }
+    
+    int delta(int slot){
+        return deltas[slot];
+    }
+    
+    void store(long key, int pliesLeft, int phi, int delta, long work){
+        int i = index(key);
+        int slot = i;
+        if(keys[i + 1] == key && remaining[i + 1] == pliesLeft){
+            slot = i + 1;
+        }
+        else if(!(keys[i] == key && remaining[i] == pliesLeft) && works[i + 1] < works[i]){
+            slot = i + 1;
+        }
+        keys[slot] = key;
+        phis[slot] = phi;
+        deltas[slot] = delta;
+        remaining[slot] = (byte) pliesLeft;
+        works[slot] = (int) Math.min(work, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,314 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Fen;
+import chess.Pgn;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/*
+Mines tactical puzzles from a PGN archive. Every game is replayed through a ChessMatch, and cheap
+filters pick the candidate positions: those where the game move gives check, or where the mover is
+clearly ahead in material a few plies later. Only candidates are verified. First MateSolver looks for
+a forced mate by checks, and the mate counts only if no other first move mates as fast. Otherwise a
+2-line search must find a material win whose best move is clearly better than any other.
+Puzzles are deduplicated by position hash and written as tab separated lines: hash, FEN, kind
+(mate N or material), solution in UCI notation, score and where it comes from (game number and ply).
+Games are read in chunks that are split across a work-stealing pool, and the results are written in
+input order. Every few chunks the number of games done and the size of the output go to
+output.checkpoint. Running again with the same arguments resumes from there.
+Usage: PuzzleMiner input.pgn output [threads] [depth]
+*/
+public class PuzzleMiner {
+    private static final int CHUNK = 64; //Games read at a time
+    private static final int IN_FLIGHT = 4; //Chunks being mined while the oldest one is written
+    private static final int CHECKPOINT_EVERY = 8; //Chunks
+    
+    private static final int SETTLE_PLIES = 4; //How far ahead a material swing is measured
+    private static final int MIN_SWING = 200; //Material gain that makes a candidate
+    private static final int MATE_MOVES = 4;
+    private static final long MATE_NODES = 20000;
+    private static final int MIN_WIN = 200; //Material the best line must win
+    private static final int MIN_MARGIN = 200; //How much better than the second best line it must be
+    
+    private static final ThreadLocal<Miner> MINER = ThreadLocal.withInitial(Miner::new);
+    
+    public static void main(String[] args) throws IOException {
+        if(args.length < 2){
+            System.err.println("Usage: PuzzleMiner input.pgn output [threads] [depth]");
+            System.exit(1);
+        }
+        Path output = Paths.get(args[1]);
+        Path checkpoint = Paths.get(args[1] + ".checkpoint");
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int depth = (args.length > 3) ? Integer.parseInt(args[3]) : 3;
+    
+        //Resuming: drop whatever was written after the checkpoint and remember the puzzles before it.
+        long gamesDone = 0;
+        long bytes = 0;
+        Set<Long> written = new HashSet<>();
+        if(Files.exists(checkpoint)){
+            for(String line : Files.readAllLines(checkpoint, StandardCharsets.UTF_8)){
+                String[] fields = line.split(" ");
+                if(fields[0].equals("games")){
+                    gamesDone = Long.parseLong(fields[1]);
+                }
+                else if(fields[0].equals("bytes")){
+                    bytes = Long.parseLong(fields[1]);
+                }
+            }
+        }
+        if(Files.exists(output)){
+            try(RandomAccessFile file = new RandomAccessFile(output.toFile(), "rw")){
+                file.setLength(bytes);
+            }
+            for(String line : Files.readAllLines(output, StandardCharsets.UTF_8)){
+                written.add(Long.parseUnsignedLong(line.substring(0, line.indexOf('\t')), 16));
+            }
+        }
+        Set<Long> seen = ConcurrentHashMap.newKeySet(); //What the writer has, so workers can skip it early
+        seen.addAll(written);
+    
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long[] totals = new long[4]; //Games, skipped games, candidates, duplicates
+        long puzzles = written.size();
+        long start = System.nanoTime();
+        try(BufferedReader in = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8);
+                FileOutputStream file = new FileOutputStream(output.toFile(), true);
+                BufferedOutputStream out = new BufferedOutputStream(file)){
+            Map<String, String> tags = new HashMap<>();
+            for(long i = 0; i < gamesDone && Pgn.readGame(in, tags) != null; i++){
+                //Already mined
+            }
+    
+            ArrayDeque<Chunk> pending = new ArrayDeque<>();
+            long chunks = 0;
+            long number = gamesDone;
+            Chunk next;
+            while(true){
+                next = readChunk(in, number, depth, seen);
+                if(next != null){
+                    number += next.games.length;
+                    pool.execute(next);
+                    pending.add(next);
+                }
+                if(pending.isEmpty()){
+                    break;
+                }
+                if(pending.size() < IN_FLIGHT && next != null){
+                    continue;
+                }
+    
+                Chunk chunk = pending.poll();
+                chunk.join();
+                for(Mined mined : chunk.results){
+                    totals[0]++;
+                    totals[1] += mined.skipped ? 1 : 0;
+                    totals[2] += mined.candidates;
+                    for(Puzzle puzzle : mined.puzzles){
+                        if(!written.add(puzzle.hash)){
+                            totals[3]++;
+                            continue;
+                        }
+                        seen.add(puzzle.hash);
+                        byte[] line = (puzzle.line + "\n").getBytes(StandardCharsets.UTF_8);
+                        out.write(line);
+                        bytes += line.length;
+                        puzzles++;
+                    }
+                }
+                gamesDone += chunk.games.length;
+                if(++chunks % CHECKPOINT_EVERY == 0 || pending.isEmpty()){
+                    out.flush();
+                    file.getFD().sync();
+                    writeCheckpoint(checkpoint, gamesDone, bytes);
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d games, %d puzzles, %.1f games/sec%n", gamesDone, puzzles, totals[0] / seconds);
+                }
+            }
+        }
+        finally{
+            pool.shutdown();
+        }
+    
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games mined in %.1f s (%d skipped as unreadable), %d candidates, %d puzzles in total, %d duplicates dropped (depth %d, %d threads)%n",
+                totals[0], seconds, totals[1], totals[2], puzzles, totals[3], depth, threads);
+    }
+    
+    private static Chunk readChunk(BufferedReader in, long firstNumber, int depth, Set<Long> seen) throws IOException {
+        List<Game> games = new ArrayList<>(CHUNK);
+        List<String> sanMoves;
+        Map<String, String> tags = new HashMap<>();
+        while(games.size() < CHUNK && (sanMoves = Pgn.readGame(in, tags)) != null){
+            games.add(new Game(firstNumber + games.size() + 1, tags.get("FEN"), sanMoves));
+        }
+        return games.isEmpty() ? null : new Chunk(games.toArray(new Game[0]), new Mined[games.size()], 0, games.size(), depth, seen);
+    }
+    
+    //Written aside and moved into place, so a crash leaves either the old checkpoint or the new one.
+    private static void writeCheckpoint(Path checkpoint, long games, long bytes) throws IOException {
+        Path temporary = Paths.get(checkpoint + ".tmp");
+        Files.write(temporary, ("games " + games + "\nbytes " + bytes + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static class Game {
+        private final long number; //1 for the first game of the input
+        private final String fen; //Null for the standard initial position
+        private final List<String> sanMoves;
+    
+        Game(long number, String fen, List<String> sanMoves){
+            this.number = number;
+            this.fen = fen;
+            this.sanMoves = sanMoves;
+        }
+    }
+    
+    private static class Puzzle {
+        private final long hash;
+        private final String line;
+    
+        Puzzle(long hash, String line){
+            this.hash = hash;
+            this.line = line;
+        }
+    }
+    
+    //What a game gave: its puzzles, in the order they come up.
+    private static class Mined {
+        private final List<Puzzle> puzzles = new ArrayList<>();
+        private int candidates;
+        private boolean skipped; //A move or the setup couldn't be read
+    }
+    
+    //Splits its range in halves so idle workers can steal the other half.
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+    
+        private final Game[] games;
+        private final Mined[] results;
+        private final int from;
+        private final int to;
+        private final int depth;
+        private final Set<Long> seen;
+    
+        Chunk(Game[] games, Mined[] results, int from, int to, int depth, Set<Long> seen){
+            this.games = games;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+            this.seen = seen;
+        }
+    
+        @Override
+        protected void compute(){
+            if(to - from <= 1){
+                for(int i = from; i < to; i++){
+                    results[i] = MINER.get().mine(games[i], depth, seen);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            ForkJoinTask.invokeAll(new Chunk(games, results, from, middle, depth, seen), new Chunk(games, results, middle, to, depth, seen));
+        }
+    }
+    
+    private static class Miner {
+        private final ChessMatch chessMatch = new ChessMatch();
+        private final TranspositionTable table = new TranspositionTable(16);
+        private final Search search = new Search(chessMatch, table);
+        private final MateSolver solver = new MateSolver(new ProofTable(16));
+        private final int[] moves = new int[1024];
+        private final int[] material = new int[1025]; //Before each ply, for the player to move
+        private final boolean[] checks = new boolean[1024]; //Whether the move gives check
+    
+        Mined mine(Game game, int depth, Set<Long> seen){
+            Mined mined = new Mined();
+            int plies = 0;
+            try{
+                Fen.load((game.fen != null) ? game.fen : Fen.START, chessMatch);
+                for(String san : game.sanMoves){
+                    if(plies == moves.length){
+                        break;
+                    }
+                    material[plies] = Evaluation.material(chessMatch);
+                    moves[plies] = Pgn.parseSan(chessMatch, san);
+                    chessMatch.pushMove(moves[plies]);
+                    checks[plies] = chessMatch.getCheck();
+                    plies++;
+                }
+            }
+            catch(ChessException e){
+                mined.skipped = true;
+                return mined;
+            }
+            material[plies] = Evaluation.material(chessMatch);
+    
+            //Back through the game, so every candidate position is reached by taking moves back.
+            for(int ply = plies - 1; ply >= 0; ply--){
+                chessMatch.popMove();
+                int settled = ply + Math.min(SETTLE_PLIES, (plies - ply) & ~1); //Same player to move as at ply
+                if(!checks[ply] && material[settled] - material[ply] < MIN_SWING){
+                    continue;
+                }
+                long hash = chessMatch.getPositionHash();
+                if(seen.contains(hash)){
+                    continue;
+                }
+                mined.candidates++;
+                String puzzle = verify(depth);
+                if(puzzle != null){
+                    mined.puzzles.add(0, new Puzzle(hash, Long.toHexString(hash) + "\t" + Fen.of(chessMatch) + "\t" + puzzle + "\tgame " + game.number + " ply " + (ply + 1)));
+                }
+            }
+            return mined;
+        }
+    
+        //The puzzle in the current position as kind, solution and score, or null if there is none.
+        private String verify(int depth){
+            MateSolver.Result mate = solver.solve(chessMatch, MATE_MOVES, MATE_NODES);
+            if(mate.getStatus() == MateSolver.Status.MATE){
+                if(mate.getPv().length == 0){
+                    return null; //The line couldn't be rebuilt within the node limit
+                }
+                int first = mate.getPv()[0];
+                MateSolver.Result other = solver.solve(chessMatch, mate.getMateIn(), MATE_NODES, first);
+                return (other.getStatus() == MateSolver.Status.NO_MATE) ? "mate " + mate.getMateIn() + "\t" + mate.pvString() + "\t-" : null;
+            }
+    
+            table.clear(); //The result mustn't depend on the positions mined before
+            List<SearchInfo> lines = search.searchLines(SearchLimits.depth(depth), 2, null);
+            if(lines.size() < 2 || lines.get(0).isMate() || lines.get(1).isMate()){
+                return null; //A forced reply isn't a puzzle, and mates are left to the solver
+            }
+            SearchInfo best = lines.get(0);
+            int win = best.getScore() - Evaluation.material(chessMatch);
+            if(win < MIN_WIN || best.getScore() - lines.get(1).getScore() < MIN_MARGIN){
+                return null;
+            }
+            return "material\t" + best.pvString() + "\t" + best.getScore();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package engine;
+
+import chess.ChessMatch;
+import java.util.Random;
+
+//Plays a uniformly random legal move. A baseline every real player should beat.
+public class RandomPlayer implements Player {
+    private final Random random;
+    private final int[] moves = new int[256];
+    
+    public RandomPlayer(long seed){
+        random = new Random(seed);
+    }
+    
+    @Override
+    public String getName(){
+        return "random";
+    }
+    
+    @Override
+    public int chooseMove(ChessMatch chessMatch, long remainingMillis, long incrementMillis){
+        int count = chessMatch.generateLegalMoves(moves);
+        return moves[random.nextInt(count)];
+    }
+}
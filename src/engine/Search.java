@@ -0,0 +1,305 @@
+package engine;
+
+import chess.ChessMatch;
+import chess.Moves;
+import chess.PieceCode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+Iterative deepening alpha-beta search over a ChessMatch, using pushMove/popMove to walk the tree.
+The match is left exactly as it was found. A Search isn't thread safe; stop() is the only method
+meant to be called from another thread.
+*/
+public class Search {
+    public static final int MATE = 100000;
+    public static final int INFINITY = 1000000;
+    public static final int MAX_PLY = 64;
+    
+    private static final int MAX_MOVES = 256;
+    private static final int MAX_QUIESCENCE_PLY = 6;
+    
+    private final ChessMatch chessMatch;
+    private final TranspositionTable table;
+    
+    //Reused between searches so that a search doesn't allocate per node.
+    private final int[][] moveLists = new int[MAX_PLY + MAX_QUIESCENCE_PLY + 1][MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY + MAX_QUIESCENCE_PLY + 1][MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[] excluded = new int[MAX_MOVES]; //Root moves the current multi-PV pass skips
+    private int excludedCount;
+    
+    private volatile boolean stopped;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    
+    public Search(ChessMatch chessMatch){
+        this(chessMatch, new TranspositionTable(18));
+    }
+    
+    public Search(ChessMatch chessMatch, TranspositionTable table){
+        this.chessMatch = chessMatch;
+        this.table = table;
+    }
+    
+    //A stop that comes before search() is called still stops that search, so there is no window to miss.
+    public void stop(){
+        stopped = true;
+    }
+    
+    public boolean isStopped(){
+        return stopped;
+    }
+    
+    public long getNodes(){
+        return nodes;
+    }
+    
+    //Returns the last completed iteration, or a depth 0 result holding any legal move if none completed.
+    public SearchInfo search(SearchLimits limits, SearchListener listener){
+        return searchLines(limits, 1, listener).get(0);
+    }
+    
+    /*
+    Multi-PV: the best "lines" root moves, each with its own principal variation, best first. Every depth
+    is searched once per line, each pass leaving out the root moves of the lines already found. The passes
+    share the transposition table and killers, so the later passes and the next depth start well ordered.
+    Returns the last depth completed for all lines; the listener gets every line of it, in order.
+    */
+    public List<SearchInfo> searchLines(SearchLimits limits, int lines, SearchListener listener){
+        try{
+            return iterate(limits, Math.max(1, lines), listener);
+        }
+        finally{
+            stopped = false;
+            excludedCount = 0;
+        }
+    }
+    
+    private List<SearchInfo> iterate(SearchLimits limits, int lines, SearchListener listener){
+        long start = System.currentTimeMillis();
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        deadline = (limits.getTimeMillis() > 0) ? start + limits.getTimeMillis() : Long.MAX_VALUE;
+        int maxDepth = (limits.getDepth() > 0) ? Math.min(limits.getDepth(), MAX_PLY) : MAX_PLY;
+        for(int[] k : killers){
+            k[0] = Moves.NONE;
+            k[1] = Moves.NONE;
+        }
+    
+        int[] rootMoves = moveLists[0];
+        int rootCount = chessMatch.generateLegalMoves(rootMoves);
+        List<SearchInfo> best = new ArrayList<>(1);
+        best.add(new SearchInfo(0, 0, 0, 0, (rootCount > 0) ? new int[] {rootMoves[0]} : new int[0]));
+        if(rootCount == 0){
+            return best;
+        }
+        lines = Math.min(lines, rootCount);
+    
+        for(int depth = 1; depth <= maxDepth; depth++){
+            List<SearchInfo> found = new ArrayList<>(lines);
+            excludedCount = 0;
+            for(int line = 0; line < lines && !stopped; line++){
+                int score = alphaBeta(depth, -INFINITY, INFINITY, 0);
+                if(stopped){
+                    break;
+                }
+                int[] moves = new int[pvLength[0]];
+                System.arraycopy(pv[0], 0, moves, 0, moves.length);
+                found.add(new SearchInfo(depth, score, nodes, System.currentTimeMillis() - start, moves));
+                excluded[excludedCount++] = moves[0];
+            }
+            if(stopped){
+                break;
+            }
+    
+            //A later pass can score higher than an earlier one when the table helps it, so put them in order.
+            found.sort(Comparator.comparingInt(SearchInfo::getScore).reversed());
+            best = new ArrayList<>(lines);
+            for(SearchInfo info : found){
+                best.add(new SearchInfo(info.getDepth(), info.getScore(), nodes, info.getTimeMillis(), info.getPv(), best.size() + 1));
+            }
+            if(listener != null){
+                for(SearchInfo info : best){
+                    listener.info(info);
+                }
+            }
+            if(lines == 1 && best.get(0).isMate() && Search.MATE - Math.abs(best.get(0).getScore()) <= depth){
+                break; //A shorter mate can't be found deeper
+            }
+        }
+        return best;
+    }
+    
+    private int alphaBeta(int depth, int alpha, int beta, int ply){
+        pvLength[ply] = ply;
+        if(ply > 0 && chessMatch.getDraw()){
+            return 0;
+        }
+        if(depth <= 0 || ply >= MAX_PLY){
+            return quiescence(alpha, beta, ply, 0);
+        }
+        if((++nodes & 127) == 0){
+            checkLimits();
+        }
+        if(stopped){
+            return 0;
+        }
+    
+        long key = chessMatch.getPositionHash();
+        int ttMove = Moves.NONE;
+        int slot = table.probe(key);
+        if(slot >= 0){
+            ttMove = table.move(slot);
+            if(ply > 0 && table.depth(slot) >= depth){
+                int score = table.score(slot, ply);
+                int bound = table.bound(slot);
+                if(bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER && score >= beta) || (bound == TranspositionTable.UPPER && score <= alpha)){
+                    return score;
+                }
+            }
+        }
+    
+        int[] moves = moveLists[ply];
+        int count = chessMatch.generateLegalMoves(moves);
+        if(count == 0){
+            return chessMatch.getCheck() ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, moveScores[ply], count, ttMove, ply);
+    
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestMove = Moves.NONE;
+    
+        for(int i = 0; i < count; i++){
+            int move = pickMove(moves, moveScores[ply], count, i);
+            if(ply == 0 && isExcluded(move)){
+                continue;
+            }
+    
+            chessMatch.pushMove(move);
+            int score = -alphaBeta(depth - 1, -beta, -alpha, ply + 1);
+            chessMatch.popMove();
+    
+            if(stopped){
+                return 0;
+            }
+            if(score > bestScore){
+                bestScore = score;
+                bestMove = move;
+                if(score > alpha){
+                    alpha = score;
+                    pv[ply][ply] = move;
+                    System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+                    pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+    
+                    if(alpha >= beta){
+                        if(chessMatch.pieceAt(Moves.target(move)) == PieceCode.EMPTY && killers[ply][0] != move){
+                            killers[ply][1] = killers[ply][0];
+                            killers[ply][0] = move;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+    
+        if(ply == 0 && excludedCount > 0){
+            return bestScore; //Not the value of the position, only of the moves that were left
+        }
+        int bound = (bestScore >= beta) ? TranspositionTable.LOWER : (bestScore > originalAlpha) ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, bestScore, depth, bound, ply);
+        return bestScore;
+    }
+    
+    private boolean isExcluded(int move){
+        for(int i = 0; i < excludedCount; i++){
+            if(excluded[i] == move){
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    //Only captures and promotions, until the position is quiet.
+    private int quiescence(int alpha, int beta, int ply, int qply){
+        nodes++;
+        int standPat = Evaluation.evaluate(chessMatch);
+        if(standPat >= beta || qply >= MAX_QUIESCENCE_PLY){
+            return standPat;
+        }
+        if(standPat > alpha){
+            alpha = standPat;
+        }
+    
+        int index = Math.min(ply, MAX_PLY) + qply;
+        int[] moves = moveLists[index];
+        int count = chessMatch.generateLegalCaptures(moves);
+        scoreMoves(moves, moveScores[index], count, Moves.NONE, MAX_PLY);
+    
+        for(int i = 0; i < count; i++){
+            int move = pickMove(moves, moveScores[index], count, i);
+    
+            chessMatch.pushMove(move);
+            int score = -quiescence(-beta, -alpha, ply, qply + 1);
+            chessMatch.popMove();
+    
+            if(score >= beta){
+                return score;
+            }
+            if(score > alpha){
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+    
+    //Hash move first, then captures by most valuable victim / least valuable attacker, then killers.
+    private void scoreMoves(int[] moves, int[] scores, int count, int ttMove, int ply){
+        for(int i = 0; i < count; i++){
+            int move = moves[i];
+            int victim = PieceCode.type(chessMatch.pieceAt(Moves.target(move)));
+            int attacker = PieceCode.type(chessMatch.pieceAt(Moves.source(move)));
+    
+            if(move == ttMove){
+                scores[i] = 1000000;
+            }
+            else if(victim != PieceCode.EMPTY || Moves.promotion(move) != PieceCode.EMPTY){
+                scores[i] = 100000 + Evaluation.VALUES[victim] * 10 + Evaluation.VALUES[Moves.promotion(move)] - attacker;
+            }
+            else if(ply < MAX_PLY && (move == killers[ply][0] || move == killers[ply][1])){
+                scores[i] = 50000;
+            }
+            else{
+                scores[i] = 0;
+            }
+        }
+    }
+    
+    //Selection sort one step at a time: a cutoff usually comes before the list is fully sorted.
+    private static int pickMove(int[] moves, int[] scores, int count, int index){
+        int best = index;
+        for(int i = index + 1; i < count; i++){
+            if(scores[i] > scores[best]){
+                best = i;
+            }
+        }
+        int move = moves[best];
+        moves[best] = moves[index];
+        moves[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+    
+    private void checkLimits(){
+        if((nodeLimit > 0 && nodes >= nodeLimit) || System.currentTimeMillis() >= deadline){
+            stopped = true;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package engine;
+
+import chess.ChessPosition;
+import chess.Moves;
+
+//Result of one completed search iteration.
+public class SearchInfo {
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long timeMillis;
+    private final int[] pv;
+    private final int line; //1 for the best line, 2 for the next best and so on (multi-PV)
+    
+    public SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv){
+        this(depth, score, nodes, timeMillis, pv, 1);
+    }
+    
+    public SearchInfo(int depth, int score, long nodes, long timeMillis, int[] pv, int line){
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+        this.pv = pv;
+        this.line = line;
+    }
+    
+    public int getDepth(){
+        return depth;
+    }
+    
+    public int getScore(){
+        return score;
+    }
+    
+    public long getNodes(){
+        return nodes;
+    }
+    
+    public long getTimeMillis(){
+        return timeMillis;
+    }
+    
+    //Principal variation as packed moves, see chess.Moves.
+    public int[] getPv(){
+        return pv.clone();
+    }
+    
+    //The principal variation as source and target squares, one pair per move.
+    public ChessPosition[][] getPvPositions(){
+        ChessPosition[][] moves = new ChessPosition[pv.length][];
+        for(int i = 0; i < pv.length; i++){
+            moves[i] = new ChessPosition[] {Moves.chessPosition(Moves.source(pv[i])), Moves.chessPosition(Moves.target(pv[i]))};
+        }
+        return moves;
+    }
+    
+    public int getLine(){
+        return line;
+    }
+    
+    public int getBestMove(){
+        return (pv.length > 0) ? pv[0] : Moves.NONE;
+    }
+    
+    public boolean isMate(){
+        return Math.abs(score) > Search.MATE - Search.MAX_PLY;
+    }
+    
+    //Moves until mate, negative when the player to move is the one getting mated.
+    public int getMateIn(){
+        int plies = Search.MATE - Math.abs(score);
+        return (score > 0) ? (plies + 1) / 2 : -(plies + 1) / 2;
+    }
+    
+    public String pvString(){
+        StringBuilder sb = new StringBuilder();
+        for(int move : pv){
+            if(sb.length() > 0){
+                sb.append(' ');
+            }
+            sb.append(Moves.toString(move));
+        }
+        return sb.toString();
+    }
+}
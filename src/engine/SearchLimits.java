@@ -0,0 +1,45 @@
+package engine;
+
+//When a search has to stop. Zero means no limit of that kind.
+public class SearchLimits {
+    private int depth;
+    private long nodes;
+    private long timeMillis;
+    
+    public SearchLimits(){
+    }
+    
+    public SearchLimits(int depth, long nodes, long timeMillis){
+        this.depth = depth;
+        this.nodes = nodes;
+        this.timeMillis = timeMillis;
+    }
+    
+    public static SearchLimits depth(int depth){
+        return new SearchLimits(depth, 0, 0);
+    }
+    
+    public int getDepth(){
+        return depth;
+    }
+    
+    public void setDepth(int depth){
+        this.depth = depth;
+    }
+    
+    public long getNodes(){
+        return nodes;
+    }
+    
+    public void setNodes(long nodes){
+        this.nodes = nodes;
+    }
+    
+    public long getTimeMillis(){
+        return timeMillis;
+    }
+    
+    public void setTimeMillis(long timeMillis){
+        this.timeMillis = timeMillis;
+    }
+}
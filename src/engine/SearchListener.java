@@ -0,0 +1,6 @@
+package engine;
+
+public interface SearchListener {
+    //Called from the searching thread after each completed depth.
+    void info(SearchInfo info);
+}
@@ -0,0 +1,38 @@
+package engine;
+
+import chess.ChessMatch;
+
+/*
+Plays the best move of a Search, either to a fixed depth or, under a clock, within a share of the remaining time.
+Keeps its transposition table between moves of the same game.
+*/
+public class SearchPlayer implements Player {
+    private static final int MOVES_TO_GO = 30;
+    private static final long SAFETY_MILLIS = 20; //Left on the clock for the overhead around the search
+    
+    private final int depth;
+    private final TranspositionTable table;
+    private Search search;
+    
+    public SearchPlayer(int depth, int tableBits){
+        this.depth = depth;
+        this.table = new TranspositionTable(tableBits);
+    }
+    
+    @Override
+    public String getName(){
+        return (depth > 0) ? "search-d" + depth : "search";
+    }
+    
+    @Override
+    public int chooseMove(ChessMatch chessMatch, long remainingMillis, long incrementMillis){
+        if(search == null){
+            search = new Search(chessMatch, table);
+        }
+        SearchLimits limits = SearchLimits.depth(depth);
+        if(remainingMillis > 0){
+            limits.setTimeMillis(Math.max(1, Math.min(remainingMillis / MOVES_TO_GO + incrementMillis / 2, remainingMillis - SAFETY_MILLIS)));
+        }
+        return search.search(limits, null).getBestMove();
+    }
+}
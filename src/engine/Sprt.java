@@ -0,0 +1,121 @@
+package engine;
+
+/*
+Sequential probability ratio test on game results, to stop a match as soon as it is clear whether the
+first player is at least elo1 stronger (H1) or at most elo0 (H0). Uses the usual normal approximation of
+the log-likelihood ratio on the mean score, which is what most engine testing frameworks use.
+Not thread safe.
+*/
+public class Sprt {
+    public enum Decision { NONE, H0, H1 }
+    
+    private final double elo0;
+    private final double elo1;
+    private final double lower;
+    private final double upper;
+    
+    private int wins;
+    private int draws;
+    private int losses;
+    
+    //alpha is the chance of accepting H1 when H0 holds, beta the chance of the opposite.
+    public Sprt(double elo0, double elo1, double alpha, double beta){
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lower = Math.log(beta / (1 - alpha));
+        this.upper = Math.log((1 - beta) / alpha);
+    }
+    
+    //Score of the first player: 1, 0.5 or 0.
+    public void add(double score){
+        if(score > 0.5){
+            wins++;
+        }
+        else if(score < 0.5){
+            losses++;
+        }
+        else{
+            draws++;
+        }
+    }
+    
+    public int getWins(){
+        return wins;
+    }
+    
+    public int getDraws(){
+        return draws;
+    }
+    
+    public int getLosses(){
+        return losses;
+    }
+    
+    public int getGames(){
+        return wins + draws + losses;
+    }
+    
+    public double getLowerBound(){
+        return lower;
+    }
+    
+    public double getUpperBound(){
+        return upper;
+    }
+    
+    public double llr(){
+        int n = getGames();
+        double score = score();
+        double variance = variance();
+        if(n == 0 || variance <= 0){
+            return 0;
+        }
+        double s0 = expectedScore(elo0);
+        double s1 = expectedScore(elo1);
+        return n * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+    }
+    
+    public Decision decision(){
+        double llr = llr();
+        return (llr >= upper) ? Decision.H1 : (llr <= lower) ? Decision.H0 : Decision.NONE;
+    }
+    
+    //Elo difference of the first player, from its mean score.
+    public double elo(){
+        return elo(score());
+    }
+    
+    //Half width of the 95% confidence interval of elo().
+    public double eloError(){
+        int n = getGames();
+        if(n == 0){
+            return Double.POSITIVE_INFINITY;
+        }
+        double margin = 1.96 * Math.sqrt(variance() / n);
+        return (elo(score() + margin) - elo(score() - margin)) / 2;
+    }
+    
+    private double score(){
+        int n = getGames();
+        return (n == 0) ? 0.5 : (wins + draws / 2.0) / n;
+    }
+    
+    //Variance of the result of one game.
+    private double variance(){
+        int n = getGames();
+        if(n == 0){
+            return 0;
+        }
+        double score = score();
+        return (wins + draws / 4.0) / n - score * score;
+    }
+    
+    private static double expectedScore(double elo){
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+    
+    private static double elo(double score){
+        double s = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / s - 1);
+    }
+}
@@ -0,0 +1,281 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Moves;
+import chess.PieceCode;
+import chess.Pgn;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/*
+Plays many games between two players, several at a time, with ChessMatch as the referee.
+Games come in pairs that start from the same random opening with colors swapped, so a lucky opening
+doesn't count for one side only. After every game the SPRT is updated, and the tournament stops
+starting new games once it reaches a decision.
+Usage: Tournament [--games n] [--concurrency n] [--tc seconds+increment] [--first player] [--second player]
+                  [--openings plies] [--max-plies n] [--seed n] [--pgn file] [--sprt elo0 elo1 alpha beta]
+Players: random, or search:depth (plain "search" only makes sense with a time control).
+*/
+public class Tournament {
+    private final LongFunction<Player> first; //Called with a seed, once per game
+    private final LongFunction<Player> second;
+    private final int games;
+    private final int concurrency;
+    private final long baseMillis; //0 for games without a clock
+    private final long incrementMillis;
+    private final int openingPlies;
+    private final int maxPlies; //Longer games are adjudicated as draws
+    private final long seed;
+    private final Sprt sprt;
+    private final Writer pgn; //Null when the games aren't kept
+    
+    private volatile boolean stopped;
+    private final AtomicLong[] thinkingNanos = {new AtomicLong(), new AtomicLong()}; //Per player
+    private final AtomicLong[] movesPlayed = {new AtomicLong(), new AtomicLong()};
+    
+    public Tournament(LongFunction<Player> first, LongFunction<Player> second, int games, int concurrency, long baseMillis, long incrementMillis,
+            int openingPlies, int maxPlies, long seed, Sprt sprt, Writer pgn){
+        this.first = first;
+        this.second = second;
+        this.games = games;
+        this.concurrency = concurrency;
+        this.baseMillis = baseMillis;
+        this.incrementMillis = incrementMillis;
+        this.openingPlies = openingPlies;
+        this.maxPlies = maxPlies;
+        this.seed = seed;
+        this.sprt = sprt;
+        this.pgn = pgn;
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int games = 200;
+        int concurrency = Runtime.getRuntime().availableProcessors();
+        long baseMillis = 0;
+        long incrementMillis = 0;
+        String firstSpec = "search:2";
+        String secondSpec = "search:1";
+        int openingPlies = 8;
+        int maxPlies = 300;
+        long seed = System.nanoTime();
+        String pgnFile = null;
+        double[] sprt = {0, 10, 0.05, 0.05};
+    
+        for(int i = 0; i + 1 < args.length; i += 2){
+            String value = args[i + 1];
+            switch(args[i]){
+                case "--games": games = Integer.parseInt(value); break;
+                case "--concurrency": concurrency = Integer.parseInt(value); break;
+                case "--tc":
+                    String[] tc = value.split("\\+");
+                    baseMillis = Math.round(Double.parseDouble(tc[0]) * 1000);
+                    incrementMillis = (tc.length > 1) ? Math.round(Double.parseDouble(tc[1]) * 1000) : 0;
+                    break;
+                case "--first": firstSpec = value; break;
+                case "--second": secondSpec = value; break;
+                case "--openings": openingPlies = Integer.parseInt(value); break;
+                case "--max-plies": maxPlies = Integer.parseInt(value); break;
+                case "--seed": seed = Long.parseLong(value); break;
+                case "--pgn": pgnFile = value; break;
+                case "--sprt":
+                    for(int k = 0; k < 4; k++){
+                        sprt[k] = Double.parseDouble(args[i + 1 + k]);
+                    }
+                    i += 3;
+                    break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(1);
+            }
+        }
+    
+        try(Writer pgn = (pgnFile == null) ? null : Files.newBufferedWriter(Paths.get(pgnFile), StandardCharsets.UTF_8)){
+            Tournament tournament = new Tournament(player(firstSpec), player(secondSpec), games, concurrency, baseMillis, incrementMillis,
+                    openingPlies, maxPlies, seed, new Sprt(sprt[0], sprt[1], sprt[2], sprt[3]), pgn);
+            System.out.printf("%s vs %s, %d games, %d at a time, seed %d%n", firstSpec, secondSpec, games, concurrency, seed);
+            tournament.run();
+        }
+    }
+    
+    private static LongFunction<Player> player(String spec){
+        if(spec.equals("random")){
+            return RandomPlayer::new;
+        }
+        if(spec.equals("search")){
+            return s -> new SearchPlayer(0, 18);
+        }
+        if(spec.startsWith("search:")){
+            int depth = Integer.parseInt(spec.substring("search:".length()));
+            return s -> new SearchPlayer(depth, 18);
+        }
+        throw new IllegalArgumentException("Unknown player: " + spec);
+    }
+    
+    //Blocks until every game that was started has finished. Returns the SPRT with all their results.
+    public Sprt run() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for(int i = 0; i < games; i++){
+            int round = i + 1;
+            executor.execute(() -> {
+                if(!stopped){
+                    finish(round, play(round));
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    
+        synchronized(this){
+            report();
+            System.out.printf("%.1f s, first %.2f ms/move, second %.2f ms/move%n", (System.nanoTime() - start) / 1e9, millisPerMove(0), millisPerMove(1));
+            return sprt;
+        }
+    }
+    
+    private double millisPerMove(int player){
+        return thinkingNanos[player].get() / 1e6 / Math.max(1, movesPlayed[player].get());
+    }
+    
+    private synchronized void finish(int round, Game game){
+        sprt.add(game.firstScore);
+        if(pgn != null){
+            try{
+                pgn.write(game.pgn);
+            }
+            catch(IOException e){
+                System.err.println("Can't write game " + round + ": " + e.getMessage());
+            }
+        }
+        Sprt.Decision decision = sprt.decision();
+        if(decision != Sprt.Decision.NONE && !stopped){
+            stopped = true;
+            report();
+            System.out.println("SPRT accepted " + ((decision == Sprt.Decision.H1) ? "H1, the first player is stronger" : "H0, the first player isn't stronger"));
+        }
+        else if(sprt.getGames() % 10 == 0){
+            report();
+        }
+    }
+    
+    private void report(){
+        System.out.printf("games %d: +%d =%d -%d, elo %.1f +/- %.1f, LLR %.2f [%.2f, %.2f]%n", sprt.getGames(), sprt.getWins(), sprt.getDraws(),
+                sprt.getLosses(), sprt.elo(), sprt.eloError(), sprt.llr(), sprt.getLowerBound(), sprt.getUpperBound());
+    }
+    
+    //Odd rounds give the first player white. Both games of a pair get the same opening.
+    private Game play(int round){
+        boolean firstIsWhite = round % 2 == 1;
+        long pairSeed = seed + (round - 1) / 2;
+        Player[] players = {first.apply(seed + round), second.apply(~(seed + round))};
+        Player white = players[firstIsWhite ? 0 : 1];
+        Player black = players[firstIsWhite ? 1 : 0];
+    
+        ChessMatch chessMatch = new ChessMatch();
+        List<String> sanMoves = new ArrayList<>();
+        int[] moves = new int[256];
+        Random random = new Random(pairSeed);
+        for(int ply = 0; ply < openingPlies && !chessMatch.getCheckmate() && !chessMatch.getDraw(); ply++){
+            int count = chessMatch.generateLegalMoves(moves);
+            int move = moves[random.nextInt(count)];
+            sanMoves.add(Pgn.san(chessMatch, move));
+            play(chessMatch, move);
+        }
+    
+        long[] clock = {baseMillis, baseMillis}; //White, black
+        String result = null;
+        String termination = null;
+        while(result == null){
+            if(chessMatch.getCheckmate()){
+                result = (chessMatch.getCurrentPlayer() == Color.WHITE) ? "1-0" : "0-1"; //The winner stays the current player
+                termination = "checkmate";
+                break;
+            }
+            if(chessMatch.getDraw()){
+                result = "1/2-1/2";
+                termination = chessMatch.getDrawReason().name().toLowerCase().replace('_', ' ');
+                break;
+            }
+            if(sanMoves.size() >= maxPlies){
+                result = "1/2-1/2";
+                termination = "adjudicated after " + maxPlies + " plies";
+                break;
+            }
+    
+            boolean whiteToMove = chessMatch.getCurrentPlayer() == Color.WHITE;
+            int side = whiteToMove ? 0 : 1;
+            int player = (whiteToMove == firstIsWhite) ? 0 : 1;
+            long start = System.nanoTime();
+            int move = players[player].chooseMove(chessMatch, clock[side], incrementMillis);
+            long elapsed = System.nanoTime() - start;
+            thinkingNanos[player].addAndGet(elapsed);
+            movesPlayed[player].incrementAndGet();
+    
+            if(baseMillis > 0){
+                clock[side] -= TimeUnit.NANOSECONDS.toMillis(elapsed);
+                if(clock[side] < 0){
+                    result = whiteToMove ? "0-1" : "1-0";
+                    termination = "time forfeit";
+                    break;
+                }
+                clock[side] += incrementMillis;
+            }
+            try{
+                sanMoves.add(Pgn.san(chessMatch, move));
+            }
+            catch(ChessException e){
+                result = whiteToMove ? "0-1" : "1-0";
+                termination = "illegal move " + Moves.toString(move);
+                break;
+            }
+            play(chessMatch, move);
+        }
+    
+        double whiteScore = result.equals("1-0") ? 1 : result.equals("0-1") ? 0 : 0.5;
+        Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Tournament");
+        tags.put("Site", "?");
+        tags.put("Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+        tags.put("Round", String.valueOf(round));
+        tags.put("White", white.getName() + (firstIsWhite ? " (first)" : " (second)"));
+        tags.put("Black", black.getName() + (firstIsWhite ? " (second)" : " (first)"));
+        tags.put("Result", result);
+        tags.put("TimeControl", (baseMillis > 0) ? (baseMillis / 1000.0) + "+" + (incrementMillis / 1000.0) : "-");
+        tags.put("Termination", termination);
+        return new Game(firstIsWhite ? whiteScore : 1 - whiteScore, Pgn.game(tags, sanMoves, result));
+    }
+    
+    private static void play(ChessMatch chessMatch, int move){
+        chessMatch.performChessMove(Moves.chessPosition(Moves.source(move)), Moves.chessPosition(Moves.target(move)));
+        if(Moves.promotion(move) != PieceCode.EMPTY){
+            chessMatch.replacePromotedPiece(String.valueOf(PieceCode.letter(Moves.promotion(move))));
+        }
+    }
+    
+    private static class Game {
+        final double firstScore;
+        final String pgn;
+    
+        Game(double firstScore, String pgn){
+            this.firstScore = firstScore;
+            this.pgn = pgn;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package engine;
+
+import java.util.Arrays;
+
+/*
+Fixed size hash table of search results, always replacing. Kept as parallel arrays so that
+storing an entry never allocates.
+*/
+public class TranspositionTable {
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+    
+    private final long[] keys;
+    private final int[] moves;
+    private final int[] scores;
+    private final byte[] depths;
+    private final byte[] bounds;
+    private final int mask;
+    
+    public TranspositionTable(int sizeBits){
+        int size = 1 << sizeBits;
+        keys = new long[size];
+        moves = new int[size];
+        scores = new int[size];
+        depths = new byte[size];
+        bounds = new byte[size];
+        mask = size - 1;
+    }
+    
+    public void clear(){
+        Arrays.fill(keys, 0L);
+        Arrays.fill(moves, 0);
+    }
+    
+    int index(long key){
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+    
+    //Slot of the key, or -1 when the table doesn't have it.
+    int probe(long key){
+        int i = index(key);
+        return (keys[i] == key) ? i : -1;
+    }
+    
+    int move(int slot){
+        return moves[slot];
+    }
+    
+    int depth(int slot){
+        return depths[slot];
+    }
+    
+    int bound(int slot){
+        return bounds[slot];
+    }
+    
+    //Mate scores are kept relative to the stored node so they stay right at any ply.
+    int score(int slot, int ply){
+        int score = scores[slot];
+        if(score > Search.MATE - Search.MAX_PLY) return score - ply;
+        if(score < -Search.MATE + Search.MAX_PLY) return score + ply;
+        return score;
+    }
+    
+    void store(long key, int move, int score, int depth, int bound, int ply){
+        if(score > Search.MATE - Search.MAX_PLY) score += ply;
+        else if(score < -Search.MATE + Search.MAX_PLY) score -= ply;
+        
+        int i = index(key);
+        keys[i] = key;
+        moves[i] = move;
+        scores[i] = score;
+        depths[i] = (byte) depth;
+        bounds[i] = (byte) bound;
+    }
+}
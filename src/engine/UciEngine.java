@@ -0,0 +1,284 @@
+package engine;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Color;
+import chess.Fen;
+import chess.Moves;
+import chess.PieceCode;
+import chess.nnue.Network;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/*
+UCI front end. The input thread only parses commands; searches run on their own thread
+and stream "info" lines while the input thread keeps answering "isready" and "stop".
+The match is kept between "position" commands and only the moves that changed are applied,
+unless the starting position itself changed.
+*/
+public class UciEngine {
+    private static final int MAX_MULTI_PV = 16;
+    
+    private final PrintStream out;
+    private ChessMatch chessMatch = new ChessMatch();
+    private String base = Fen.START; //Position chessMatch was set up from, before playedMoves
+    private final List<String> playedMoves = new ArrayList<>(); //Moves applied to chessMatch, in UCI notation
+    private final TranspositionTable table = new TranspositionTable(20);
+    private int multiPv = 1;
+    private boolean useNetwork;
+    private Network network; //From EvalFile, or the built-in one once it is needed
+    
+    private Search search;
+    private Thread searchThread;
+    private CountDownLatch stopped; //Released by stopSearch; "go infinite" holds bestmove until then
+    
+    public UciEngine(PrintStream out){
+        this.out = out;
+    }
+    
+    public static void main(String[] args) throws IOException {
+        new UciEngine(System.out).run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+    
+    public void run(BufferedReader in) throws IOException {
+        String line;
+        while((line = in.readLine()) != null){
+            if(!handle(line.trim())){
+                break;
+            }
+        }
+        stopSearch();
+    }
+    
+    //Returns false on "quit".
+    public boolean handle(String line){
+        String[] args = line.split("\\s+");
+        switch(args[0]){
+            case "uci":
+                send("id name Chess-system");
+                send("id author chess-system-java");
+                send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                send("option name UseNNUE type check default false");
+                send("option name EvalFile type string default <built-in>");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                stopSearch();
+                setOption(args);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                chessMatch = new ChessMatch();
+                chessMatch.setNetwork(useNetwork ? network() : null);
+                base = Fen.START;
+                playedMoves.clear();
+                table.clear();
+                break;
+            case "position":
+                stopSearch();
+                position(args);
+                break;
+            case "go":
+                stopSearch();
+                go(args);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            default:
+                //Unknown commands are ignored, as the protocol asks
+        }
+        return true;
+    }
+    
+    //setoption name <id> [value <x>]
+    private void setOption(String[] args){
+        int valueIndex = Arrays.asList(args).indexOf("value");
+        if(args.length < 3 || valueIndex < 0 || valueIndex + 1 >= args.length){
+            return;
+        }
+        String name = String.join(" ", Arrays.copyOfRange(args, 2, valueIndex));
+        String value = String.join(" ", Arrays.copyOfRange(args, valueIndex + 1, args.length));
+        if(name.equalsIgnoreCase("UseNNUE")){
+            useNetwork = value.equalsIgnoreCase("true");
+            chessMatch.setNetwork(useNetwork ? network() : null);
+        }
+        else if(name.equalsIgnoreCase("EvalFile")){
+            try{
+                network = value.equals("<built-in>") ? null : Network.load(Paths.get(value));
+            }
+            catch(IOException | IllegalArgumentException e){
+                send("info string cannot load " + value + ": " + e.getMessage());
+                return;
+            }
+            chessMatch.setNetwork(useNetwork ? network() : null);
+        }
+        else if(name.equalsIgnoreCase("MultiPV")){
+            try{
+                multiPv = Math.max(1, Math.min(MAX_MULTI_PV, Integer.parseInt(args[valueIndex + 1])));
+            }
+            catch(NumberFormatException e){
+                //Keep the previous value
+            }
+        }
+    }
+    
+    private Network network(){
+        if(network == null){
+            network = Evaluation.network();
+        }
+        return network;
+    }
+    
+    //position startpos|fen <fen> [moves m1 m2 ...]
+    private void position(String[] args){
+        int movesIndex = Arrays.asList(args).indexOf("moves");
+        int end = (movesIndex < 0) ? args.length : movesIndex;
+        String fen;
+        if(args.length >= 2 && args[1].equals("startpos")){
+            fen = Fen.START;
+        }
+        else if(args.length >= 3 && args[1].equals("fen")){
+            fen = String.join(" ", Arrays.asList(args).subList(2, end));
+        }
+        else{
+            send("info string expected startpos or fen");
+            return;
+        }
+        if(!fen.equals(base)){
+            try{
+                Fen.load(fen, chessMatch);
+            }
+            catch(ChessException e){
+                send("info string " + e.getMessage());
+                return;
+            }
+            base = fen;
+            playedMoves.clear();
+        }
+        List<String> moves = (movesIndex < 0) ? new ArrayList<>() : Arrays.asList(args).subList(movesIndex + 1, args.length);
+    
+        //Keep the common prefix, take back what differs and play the rest.
+        int common = 0;
+        while(common < playedMoves.size() && common < moves.size() && playedMoves.get(common).equals(moves.get(common))){
+            common++;
+        }
+        while(playedMoves.size() > common){
+            chessMatch.undoLastMove();
+            playedMoves.remove(playedMoves.size() - 1);
+        }
+        for(int i = common; i < moves.size(); i++){
+            try{
+                play(moves.get(i));
+                playedMoves.add(moves.get(i));
+            }
+            catch(ChessException e){
+                send("info string illegal move " + moves.get(i) + ": " + e.getMessage());
+                return;
+            }
+        }
+    }
+    
+    private void play(String text){
+        int move = Moves.parse(text);
+        chessMatch.performChessMove(Moves.chessPosition(Moves.source(move)), Moves.chessPosition(Moves.target(move)));
+        if(Moves.promotion(move) != PieceCode.EMPTY){
+            chessMatch.replacePromotedPiece(String.valueOf(PieceCode.letter(Moves.promotion(move))));
+        }
+    }
+    
+    //go [depth d] [nodes n] [movetime ms] [wtime ms] [btime ms] [winc ms] [binc ms] [movestogo n] [infinite]
+    private void go(String[] args){
+        SearchLimits limits = new SearchLimits();
+        long time = 0;
+        long increment = 0;
+        int movesToGo = 30;
+        boolean infinite = false;
+        boolean white = chessMatch.getCurrentPlayer() == Color.WHITE;
+    
+        for(int i = 1; i < args.length; i++){
+            String value = (i + 1 < args.length) ? args[i + 1] : "0";
+            switch(args[i]){
+                case "depth": limits.setDepth(Integer.parseInt(value)); i++; break;
+                case "nodes": limits.setNodes(Long.parseLong(value)); i++; break;
+                case "movetime": limits.setTimeMillis(Long.parseLong(value)); i++; break;
+                case "wtime": if(white) time = Long.parseLong(value); i++; break;
+                case "btime": if(!white) time = Long.parseLong(value); i++; break;
+                case "winc": if(white) increment = Long.parseLong(value); i++; break;
+                case "binc": if(!white) increment = Long.parseLong(value); i++; break;
+                case "movestogo": movesToGo = Math.max(1, Integer.parseInt(value)); i++; break;
+                case "infinite": infinite = true; break;
+                default:
+                    //Anything unknown: no extra limit
+            }
+        }
+        if(limits.getTimeMillis() == 0 && time > 0){
+            limits.setTimeMillis(Math.max(1, Math.min(time / movesToGo + increment / 2, time - 50)));
+        }
+    
+        Search current = new Search(chessMatch, table);
+        int lines = multiPv;
+        boolean waitForStop = infinite;
+        CountDownLatch stop = new CountDownLatch(1);
+        search = current;
+        stopped = stop;
+        searchThread = new Thread(() -> {
+            SearchInfo result = current.searchLines(limits, lines, this::sendInfo).get(0);
+            if(waitForStop){
+                //The protocol wants bestmove only after "stop", even when there is no move or a mate ends the search early.
+                try{
+                    stop.await();
+                }
+                catch(InterruptedException e){
+                    Thread.currentThread().interrupt();
+                }
+            }
+            send("bestmove " + ((result.getBestMove() == Moves.NONE) ? "0000" : Moves.toString(result.getBestMove())));
+        }, "uci-search");
+        searchThread.start();
+    }
+    
+    private void stopSearch(){
+        if(search != null){
+            search.stop();
+            stopped.countDown();
+            try{
+                searchThread.join();
+            }
+            catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+            search = null;
+            searchThread = null;
+            stopped = null;
+        }
+    }
+    
+    private void sendInfo(SearchInfo info){
+        String score = info.isMate() ? "mate " + info.getMateIn() : "cp " + info.getScore();
+        long nps = info.getNodes() * 1000 / Math.max(1, info.getTimeMillis());
+        String line = (multiPv > 1) ? " multipv " + info.getLine() : "";
+        send("info depth " + info.getDepth() + line + " score " + score + " nodes " + info.getNodes() + " nps " + nps
+                + " time " + info.getTimeMillis() + " pv " + info.pvString());
+    }
+    
+    //Both the input thread and the search thread write, one whole line at a time.
+    private void send(String line){
+        synchronized(out){
+            out.println(line);
+            out.flush();
+        }
+    }
+}
@@ -4,41 +4,64 @@ import chess.ChessException;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
+import chess.Moves;
+import engine.AnalysisListener;
+import engine.AnalysisService;
+import engine.SearchInfo;
+import engine.SearchLimits;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
 
+/*
+Two players at one terminal. With --hints, the position is analysed in the background while the
+player thinks, and the threat and best move found so far are shown next to the board.
+*/
 public class Main {
     public static void main(String[] args) {
-        
+    
         Scanner scan = new Scanner(System.in);
         ChessMatch chessMatch = new ChessMatch();
-        
+        TerminalRenderer renderer = new TerminalRenderer(System.out);
+        AnalysisService hints = Arrays.asList(args).contains("--hints") ? new AnalysisService(1, new SearchLimits(8, 0, 15000)) : null;
+        AnalysisService.Analysis analysis = null;
+        long analysedPosition = 0;
+    
         List<ChessPiece> capturedPieces = new ArrayList<>();
-        
-        while(!chessMatch.getCheckmate()){
+    
+        while(!chessMatch.getCheckmate() && !chessMatch.getDraw()){
             try{
-                UI.clearScreen();
-                UI.printMatch(chessMatch, capturedPieces);
+                renderer.printMatch(chessMatch, capturedPieces);
+                if(hints != null && (analysis == null || analysedPosition != chessMatch.getPositionHash())){
+                    //Rows of the last position go, in case this one gets no threat (the side to move is in check) or no hint yet.
+                    renderer.printAnalysis(0, "");
+                    renderer.printAnalysis(1, "");
+                    analysis = hints.analyse(chessMatch, new HintPrinter(renderer));
+                    analysedPosition = chessMatch.getPositionHash();
+                }
                 System.out.println();
                 System.out.print("Source: ");
                 ChessPosition source = UI.readChessPosition(scan);
-                
+    
                 boolean[][] possibleMoves = chessMatch.possibleMoves(source);
-                UI.clearScreen();
-                UI.printBoard(chessMatch.getPieces(), possibleMoves);
-
+                renderer.printBoard(chessMatch.getPieces(), possibleMoves);
+    
                 System.out.println();
                 System.out.print("Target: ");
                 ChessPosition target = UI.readChessPosition(scan);
-
+    
+                if(analysis != null){
+                    analysis.cancel(); //The move is in, the hints are no use any more
+                    analysis = null;
+                }
                 ChessPiece capturedPiece = chessMatch.performChessMove(source, target);
-                
+    
                 if(capturedPiece != null){
                     capturedPieces.add(capturedPiece);
                 }
-                
+    
                 if(chessMatch.getPromoted() != null){
                     System.out.print("Enter piece for promotion (B/N/R/Q): ");
                     String type = scan.nextLine().toUpperCase();
@@ -58,7 +81,28 @@ public class Main {
                 scan.nextLine();
             }
         }
-        UI.clearScreen();
-        UI.printMatch(chessMatch, capturedPieces);
+        if(hints != null){
+            hints.close();
+        }
+        renderer.printMatch(chessMatch, capturedPieces);
+    }
+    
+    private static class HintPrinter implements AnalysisListener {
+        private final TerminalRenderer renderer;
+    
+        HintPrinter(TerminalRenderer renderer){
+            this.renderer = renderer;
+        }
+    
+        @Override
+        public void threat(SearchInfo info){
+            renderer.printAnalysis(0, "Threat: " + Moves.toString(info.getBestMove()));
+        }
+    
+        @Override
+        public void hint(SearchInfo info){
+            String score = info.isMate() ? "mate in " + info.getMateIn() : String.format("%+.2f", info.getScore() / 100.0);
+            renderer.printAnalysis(1, "Hint: " + Moves.toString(info.getBestMove()) + " (" + score + ", depth " + info.getDepth() + ")");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package main;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.PieceCode;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+Draws the match into one reusable buffer and writes it with a single flush.
+The first frame clears the screen and draws everything. After that only the squares
+that changed since the previous frame are sent, each behind an ANSI cursor move,
+and the status text below the board is rewritten in place.
+*/
+public class TerminalRenderer {
+    private static final int BOARD_SIZE = 8;
+    private static final String COLUMN_LABELS = "  a b c d e f g h";
+    private static final int HIGHLIGHT = 16;
+    private static final int ANALYSIS_COLUMN = COLUMN_LABELS.length() + 4; //Right of the board
+    
+    private final PrintStream out;
+    private final StringBuilder frame = new StringBuilder(2048);
+    private final int[] cells = new int[BOARD_SIZE * BOARD_SIZE]; //What each square showed on the last frame
+    private boolean fullRedraw = true;
+    
+    public TerminalRenderer(PrintStream out){
+        this.out = out;
+    }
+    
+    //Forces the next frame to redraw the whole screen, e.g. after something else wrote over the board.
+    public void invalidate(){
+        fullRedraw = true;
+    }
+    
+    public void printMatch(ChessMatch chessMatch, List<ChessPiece> capturedPieces){
+        frame.setLength(0);
+        appendBoard(chessMatch.getPieces(), null);
+        appendStatusStart();
+        frame.append(UI.NEW_LINE);
+        UI.appendMatchStatus(frame, chessMatch, capturedPieces);
+        flush();
+    }
+    
+    public void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves){
+        frame.setLength(0);
+        appendBoard(pieces, possibleMoves);
+        appendStatusStart();
+        flush();
+    }
+    
+    private void appendBoard(ChessPiece[][] pieces, boolean[][] possibleMoves){
+        if(fullRedraw){
+            frame.append("\033[H\033[2J");
+            Arrays.fill(cells, -1);
+        }
+        for(int i = 0; i < BOARD_SIZE; i++){
+            for(int j = 0; j < BOARD_SIZE; j++){
+                boolean background = possibleMoves != null && possibleMoves[i][j];
+                int cell = PieceCode.of(pieces[i][j]) | (background ? HIGHLIGHT : 0);
+                
+                if(cells[i * BOARD_SIZE + j] != cell){
+                    cells[i * BOARD_SIZE + j] = cell;
+                    moveCursor(i + 1, 3 + 2 * j); //Each row starts with its number and a space
+                    UI.appendPiece(frame, pieces[i][j], background);
+                }
+            }
+        }
+        if(fullRedraw){
+            for(int i = 0; i < BOARD_SIZE; i++){
+                moveCursor(i + 1, 1);
+                frame.append(BOARD_SIZE - i).append(' ');
+            }
+            moveCursor(BOARD_SIZE + 1, 1);
+            frame.append(COLUMN_LABELS);
+            fullRedraw = false;
+        }
+    }
+    
+    //Leaves the cursor after the column labels, like UI does, clearing the old status and whatever the player typed.
+    private void appendStatusStart(){
+        moveCursor(BOARD_SIZE + 1, COLUMN_LABELS.length() + 1);
+        frame.append("\033[J");
+    }
+    
+    /*
+    Writes a line of analysis next to the board, on board row "row" (0 is the top). Meant for other
+    threads: the cursor is saved and restored around it, so whatever the player is typing isn't disturbed.
+    */
+    public void printAnalysis(int row, String text){
+        StringBuilder sb = new StringBuilder(text.length() + 32);
+        sb.append("\0337\033[").append(row + 1).append(';').append(ANALYSIS_COLUMN).append("H\033[K").append(text).append("\0338");
+        synchronized(out){
+            out.print(sb);
+            out.flush();
+        }
+    }
+    
+    private void moveCursor(int line, int column){
+        frame.append("\033[").append(line).append(';').append(column).append('H');
+    }
+    
+    private void flush(){
+        synchronized(out){
+            out.print(frame);
+            out.flush();
+        }
+    }
+}
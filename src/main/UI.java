@@ -33,6 +33,8 @@ public class UI {
     public static final String ANSI_CYAN_BACKGROUND = "\u001B[46m";
     public static final String ANSI_WHITE_BACKGROUND = "\u001B[47m";
     
+    static final String NEW_LINE = System.lineSeparator();
+    
     // https://stackoverflow.com/questions/2979383/java-clear-the-console
     
     public static void clearScreen() { // --> It will clean the console.
@@ -46,7 +48,7 @@ public class UI {
             char column = s.charAt(0);
             int row = Integer.parseInt(s.substring(1));
             
-            return new ChessPosition(column, row);
+            return ChessPosition.of(column, row);
         }
         catch(RuntimeException e){
             throw new InputMismatchException("Error instatianting ChessPosition. Valid values are from a1 to h8.");
@@ -54,86 +56,103 @@ public class UI {
     }
     
     public static void printMatch(ChessMatch chessMatch, List<ChessPiece> capturedPieces){
-        printBoard(chessMatch.getPieces());
-        System.out.println();
-        
-        printCapturedPieces(capturedPieces); //Print all captured pieces
-        System.out.println();
-        
-        System.out.println("Turn: " + chessMatch.getTurn());
-        
-        if(!chessMatch.getCheckmate()){
-            System.out.println("Waiting current player: " + chessMatch.getCurrentPlayer());
-
-            if(chessMatch.getCheck()){
-                System.out.println("CHECK!");
-            }
-        }
-        else{
-            System.out.println("CHECKMATE!");
-            System.out.println("Winner: " + chessMatch.getCurrentPlayer());
-        }
+        StringBuilder sb = new StringBuilder(1024);
+        appendBoard(sb, chessMatch.getPieces(), null);
+        sb.append(NEW_LINE);
+        appendMatchStatus(sb, chessMatch, capturedPieces);
+        print(sb);
     } 
     
     public static void printBoard(ChessPiece[][] pieces){
-        for(int i = 0; i < pieces.length; i++){
-            System.out.print((8 - i) + " ");
-            for(int j = 0; j < pieces.length; j++){
-                printPiece(pieces[i][j], false);
-            }
-            System.out.println();
-        }
-        System.out.print("  a b c d e f g h");
+        StringBuilder sb = new StringBuilder(512);
+        appendBoard(sb, pieces, null);
+        print(sb);
     }
     
     public static void printBoard(ChessPiece[][] pieces, boolean[][] possibleMoves){
+        StringBuilder sb = new StringBuilder(512);
+        appendBoard(sb, pieces, possibleMoves);
+        print(sb);
+    }
+    
+    //The whole text goes out in a single write instead of one print per square.
+    private static void print(StringBuilder sb){
+        System.out.print(sb);
+        System.out.flush();
+    }
+    
+    static void appendBoard(StringBuilder sb, ChessPiece[][] pieces, boolean[][] possibleMoves){
         for(int i = 0; i < pieces.length; i++){
-            System.out.print((8 - i) + " ");
+            sb.append(8 - i).append(' ');
             for(int j = 0; j < pieces.length; j++){
-                printPiece(pieces[i][j], possibleMoves[i][j]);
+                appendPiece(sb, pieces[i][j], possibleMoves != null && possibleMoves[i][j]);
             }
-            System.out.println();
+            sb.append(NEW_LINE);
         }
-        System.out.print("  a b c d e f g h");
+        sb.append("  a b c d e f g h");
     }
     
-    private static void printPiece(ChessPiece piece, boolean background) {
+    static void appendPiece(StringBuilder sb, ChessPiece piece, boolean background) {
         if(background){
-            System.out.print(ANSI_BLUE_BACKGROUND);
+            sb.append(ANSI_BLUE_BACKGROUND);
         }
         if (piece == null) {
-            System.out.print("-" + ANSI_RESET);
+            sb.append('-').append(ANSI_RESET);
         }
         else {
             if (piece.getColor() == Color.WHITE) {
-                System.out.print(ANSI_WHITE + piece + ANSI_RESET);
+                sb.append(ANSI_WHITE).append(piece).append(ANSI_RESET);
             }
             else {
-                System.out.print(ANSI_YELLOW + piece + ANSI_RESET);
+                sb.append(ANSI_YELLOW).append(piece).append(ANSI_RESET);
+            }
+        }
+        sb.append(' ');
+    }
+    
+    //Everything printMatch shows below the board.
+    static void appendMatchStatus(StringBuilder sb, ChessMatch chessMatch, List<ChessPiece> capturedPieces){
+        appendCapturedPieces(sb, capturedPieces); //Print all captured pieces
+        sb.append(NEW_LINE);
+        
+        sb.append("Turn: ").append(chessMatch.getTurn()).append(NEW_LINE);
+        
+        if(chessMatch.getCheckmate()){
+            sb.append("CHECKMATE!").append(NEW_LINE);
+            sb.append("Winner: ").append(chessMatch.getCurrentPlayer()).append(NEW_LINE);
+        }
+        else if(chessMatch.getDraw()){
+            sb.append("DRAW!").append(NEW_LINE);
+            sb.append("Reason: ").append(chessMatch.getDrawReason()).append(NEW_LINE);
+        }
+        else{
+            sb.append("Waiting current player: ").append(chessMatch.getCurrentPlayer()).append(NEW_LINE);
+
+            if(chessMatch.getCheck()){
+                sb.append("CHECK!").append(NEW_LINE);
             }
         }
-        System.out.print(" ");
     }
     
-    private static void printCapturedPieces(List<ChessPiece> capturedPieces){
+    private static void appendCapturedPieces(StringBuilder sb, List<ChessPiece> capturedPieces){
         //Filtering all the white pieces in the list
         List<ChessPiece> white = capturedPieces.stream().filter(x -> x.getColor() == Color.WHITE).collect(Collectors.toList());
         //Filtering the black one
         List<ChessPiece> black = capturedPieces.stream().filter(x -> x.getColor() == Color.BLACK).collect(Collectors.toList());
         
-        System.out.println();
-        System.out.println("Captured pieces: ");
+        sb.append(NEW_LINE);
+        sb.append("Captured pieces: ").append(NEW_LINE);
         
         //print all the captured white pieces
-        System.out.print("White: ");
-        System.out.print(ANSI_WHITE);
-        System.out.println(Arrays.toString(white.toArray()));
-        System.out.print(ANSI_RESET);
+        sb.append("White: ");
+        sb.append(ANSI_WHITE);
+        sb.append(Arrays.toString(white.toArray())).append(NEW_LINE);
+        sb.append(ANSI_RESET);
         
         //print all the captured black pieces
-        System.out.print("Black: ");
-        System.out.print(ANSI_YELLOW);
-        System.out.println(Arrays.toString(black.toArray()));
-        System.out.print(ANSI_RESET);
+        sb.append("Black: ");
+        sb.append(ANSI_YELLOW);
+        sb.append(Arrays.toString(black.toArray())).append(NEW_LINE);
+        sb.append(ANSI_RESET);
     }
 }
\ No newline at end of file
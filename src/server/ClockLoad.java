@@ -0,0 +1,73 @@
+package server;
+
+import chess.Color;
+import chess.clock.ClockMode;
+import chess.clock.GameClock;
+import chess.clock.TimingWheel;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+How late flags fall and what the shared timing wheel costs. Starts many clocks with random amounts of
+time, lets most of them run out while a few are pressed now and then, and prints the flag latency
+percentiles and the CPU time of the wheel's thread.
+Usage: ClockLoad [clocks] [max seconds]
+*/
+public class ClockLoad {
+    
+    public static void main(String[] args) throws InterruptedException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 50000;
+        int maxSeconds = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+    
+        try(TimingWheel wheel = new TimingWheel()){
+            long[] zero = new long[count];
+            long[] late = new long[count];
+            CountDownLatch flagged = new CountDownLatch(count);
+            GameClock[] clocks = new GameClock[count];
+            for(int i = 0; i < count; i++){
+                int index = i;
+                long base = ThreadLocalRandom.current().nextLong(500, maxSeconds * 1000L);
+                clocks[i] = new GameClock(wheel, base, 0, ClockMode.INCREMENT, color -> {
+                    late[index] = System.nanoTime() - zero[index];
+                    flagged.countDown();
+                });
+                zero[i] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(base);
+                clocks[i].switchTo(Color.WHITE);
+            }
+    
+            //Some players keep moving for a while, which reschedules and cancels their timeouts.
+            long cpuBefore = wheelCpuTime();
+            long start = System.nanoTime();
+            for(int round = 0; round < 10; round++){
+                Thread.sleep(100);
+                for(int i = round; i < count; i += 50){
+                    Color mover = clocks[i].getRunning();
+                    if(mover != null && clocks[i].press(mover)){
+                        zero[i] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(clocks[i].remainingMillis(clocks[i].getRunning()));
+                    }
+                }
+            }
+            flagged.await();
+            long elapsed = System.nanoTime() - start;
+    
+            Arrays.sort(late);
+            System.out.printf("%d clocks flagged in %.1f s%n", count, elapsed / 1e9);
+            System.out.printf("flag latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n", late[count / 2] / 1e6, late[count * 99 / 100] / 1e6, late[count - 1] / 1e6);
+            System.out.printf("wheel thread CPU %.1f ms (%.2f%% of one core)%n", (wheelCpuTime() - cpuBefore) / 1e6, 100.0 * (wheelCpuTime() - cpuBefore) / elapsed);
+        }
+    }
+    
+    private static long wheelCpuTime(){
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        for(Thread thread : Thread.getAllStackTraces().keySet()){
+            if(thread.getName().equals("timing-wheel")){
+                return threads.getThreadCpuTime(thread.getId());
+            }
+        }
+        return 0;
+    }
+}
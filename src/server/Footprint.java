@@ -0,0 +1,56 @@
+package server;
+
+import chess.ChessMatch;
+import chess.Moves;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+Heap used per hosted match, live and parked. Plays random moves on many sessions, measures the
+heap after a full collection, parks them all and measures again.
+Usage: Footprint [matches] [plies per match]
+*/
+public class Footprint {
+    
+    public static void main(String[] args){
+        int matches = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+        int plies = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+    
+        try(MatchManager manager = new MatchManager()){
+            long empty = usedHeap();
+            CompletableFuture<?>[] played = new CompletableFuture<?>[matches];
+            for(int i = 0; i < matches; i++){
+                played[i] = manager.createMatch().submit(match -> playRandomMoves(match, plies));
+            }
+            CompletableFuture.allOf(played).join();
+    
+            long live = usedHeap();
+            int parked = manager.parkIdle(0);
+            long idle = usedHeap();
+    
+            System.out.printf("%d matches, %d plies each%n", matches, plies);
+            System.out.printf("live:   %8.0f bytes per match%n", (live - empty) / (double) matches);
+            System.out.printf("parked: %8.0f bytes per match (%d parked)%n", (idle - empty) / (double) matches, parked);
+        }
+    }
+    
+    private static int playRandomMoves(ChessMatch chessMatch, int plies){
+        int[] moves = new int[256];
+        for(int i = 0; i < plies && !chessMatch.getCheckmate() && !chessMatch.getDraw(); i++){
+            int count = chessMatch.generateLegalMoves(moves);
+            int move = moves[ThreadLocalRandom.current().nextInt(count)];
+            chessMatch.performChessMove(Moves.chessPosition(Moves.source(move)), Moves.chessPosition(Moves.target(move)));
+        }
+        return chessMatch.getMoveHistory().size();
+    }
+    
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for(int i = 0; i < 5; i++){
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -0,0 +1,378 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.metrics.Metrics;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/*
+HTTP/JSON front end on the JDK's built-in server.
+
+    POST /matches                         -> new match state
+    GET  /matches/{id}                    -> match state (with an ETag, so pollers can get 304)
+    GET  /matches/{id}/moves?from=e2      -> possible targets
+    POST /matches/{id}/move?from=e2&to=e4 -> new state
+    POST /matches/{id}/promote?type=N     -> new state
+    DELETE /matches/{id}                  -> 204, closes the match and its event streams
+    GET  /matches/{id}/events             -> server-sent events, one "state" event per change
+    GET  /metrics                         -> text dump of the match metrics
+
+Parameters may also come form-encoded in the body. The state JSON of each match is built once
+per change on the match thread and then served as the same bytes to every reader.
+*/
+public class HttpApi implements AutoCloseable {
+    private static final int MAX_QUEUED_EVENTS = 256; //Event streams further behind than this are dropped
+    
+    private final MatchManager manager;
+    private final HttpServer server;
+    private final ExecutorService executor = MatchManager.newSessionExecutor();
+    private final ExecutorService streamExecutor = MatchManager.newBlockingExecutor(); //Event stream writes, kept off the request threads
+    private final Map<Long, Published> published = new ConcurrentHashMap<>();
+    
+    public HttpApi(MatchManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        server = HttpServer.create(address, 1024);
+        server.createContext("/matches", this::handle);
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(executor);
+    }
+    
+    public void start(){
+        server.start();
+    }
+    
+    public int getPort(){
+        return server.getAddress().getPort();
+    }
+    
+    @Override
+    public void close(){
+        server.stop(0);
+        executor.shutdown();
+        streamExecutor.shutdown();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try{
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            
+            if(path.length == 2 && method.equals("POST")){
+                MatchSession session = manager.createMatch();
+                Published match = new Published();
+                published.put(session.getId(), match);
+                respond(exchange, 201, call(session, chessMatch -> publish(session.getId(), match, chessMatch)));
+                return;
+            }
+            if(path.length < 3){
+                respond(exchange, 404, MatchText.jsonError("Not found"));
+                return;
+            }
+            
+            long id = parseId(path[2]);
+            MatchSession session = manager.getMatch(id);
+            Published match = published.get(id);
+            if(session == null || match == null){
+                if(match != null){
+                    published.remove(id); //Closed through the manager
+                }
+                respond(exchange, 404, MatchText.jsonError("There is no match " + path[2]));
+                return;
+            }
+            String action = (path.length > 3) ? path[3] : "";
+            Map<String, String> params = params(exchange);
+            
+            if(action.isEmpty() && method.equals("GET")){
+                getState(exchange, match);
+            }
+            else if(action.isEmpty() && method.equals("DELETE")){
+                closeMatch(exchange, session, match);
+            }
+            else if(action.equals("moves") && method.equals("GET")){
+                ChessPosition source = MatchText.parsePosition(required(params, "from"));
+                respond(exchange, 200, call(session, chessMatch -> MatchText.jsonMoves(source, chessMatch.possibleMoves(source))));
+            }
+            else if(action.equals("move") && method.equals("POST")){
+                ChessPosition source = MatchText.parsePosition(required(params, "from"));
+                ChessPosition target = MatchText.parsePosition(required(params, "to"));
+                respond(exchange, 200, call(session, chessMatch -> {
+                    chessMatch.performChessMove(source, target);
+                    return publish(id, match, chessMatch);
+                }));
+            }
+            else if(action.equals("promote") && method.equals("POST")){
+                String type = required(params, "type").toUpperCase();
+                respond(exchange, 200, call(session, chessMatch -> {
+                    chessMatch.replacePromotedPiece(type);
+                    return publish(id, match, chessMatch);
+                }));
+            }
+            else if(action.equals("events") && method.equals("GET")){
+                openEvents(exchange, session, match);
+            }
+            else{
+                respond(exchange, 404, MatchText.jsonError("Not found"));
+            }
+        }
+        catch(ChessException | IllegalStateException e){
+            respond(exchange, 400, MatchText.jsonError(e.getMessage()));
+        }
+    }
+    
+    //Runs on the match thread after every change: one serialization, shared by all readers and streams.
+    private String publish(long id, Published match, ChessMatch chessMatch){
+        String json = MatchText.json(id, chessMatch);
+        State previous = match.state; //Only ever written from the match thread
+        match.state = new State(json.getBytes(StandardCharsets.UTF_8), (previous == null) ? 1 : previous.version + 1);
+        
+        byte[] event = event(match.state.body);
+        for(EventStream stream : match.streams){
+            stream.send(event);
+        }
+        return json;
+    }
+    
+    private void getState(HttpExchange exchange, Published match) throws IOException {
+        State state = match.state; //Read once, so the body and its ETag are of the same version
+        if(state == null){
+            respond(exchange, 503, MatchText.jsonError("The match is still being created"));
+            return;
+        }
+        String etag = "\"" + state.version + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if(etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))){
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, state.body.length);
+        try(OutputStream body = exchange.getResponseBody()){
+            body.write(state.body);
+        }
+    }
+    
+    /*
+    The stream is registered and sent the current state on the match thread, where publish runs too,
+    so no change can fall between the two or arrive ahead of the initial state.
+    */
+    private void openEvents(HttpExchange exchange, MatchSession session, Published match) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        
+        EventStream stream = new EventStream(exchange, match);
+        call(session, chessMatch -> {
+            if(match.closed){
+                stream.close();
+                return null;
+            }
+            match.streams.add(stream);
+            State state = match.state;
+            if(state != null){ //Otherwise the creating POST hasn't published yet, and its publish is the first event
+                stream.send(event(state.body));
+            }
+            return null;
+        });
+        //The exchange stays open; the stream writes to it from now on.
+    }
+    
+    //Ends the match's streams on its thread, so no stream can register after them, then forgets the match.
+    private void closeMatch(HttpExchange exchange, MatchSession session, Published match) throws IOException {
+        call(session, chessMatch -> {
+            match.closed = true;
+            for(EventStream stream : match.streams){
+                stream.close();
+            }
+            return null;
+        });
+        manager.closeMatch(session.getId());
+        published.remove(session.getId());
+        exchange.sendResponseHeaders(204, -1);
+        exchange.close();
+    }
+    
+    private static byte[] event(byte[] json){
+        byte[] head = "event: state\ndata: ".getBytes(StandardCharsets.UTF_8);
+        byte[] event = Arrays.copyOf(head, head.length + json.length + 2);
+        System.arraycopy(json, 0, event, head.length, json.length);
+        event[event.length - 2] = '\n';
+        event[event.length - 1] = '\n';
+        return event;
+    }
+    
+    private static String call(MatchSession session, Function<ChessMatch, String> command){
+        try{
+            return session.submit(command).join();
+        }
+        catch(CompletionException e){
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    //Text dump of the match metrics, see chess.metrics.Metrics.
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        byte[] bytes = Metrics.dump().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try(OutputStream body = exchange.getResponseBody()){
+            body.write(bytes);
+        }
+    }
+    
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try(OutputStream body = exchange.getResponseBody()){
+            body.write(bytes);
+        }
+    }
+    
+    private static long parseId(String s){
+        try{
+            return Long.parseLong(s);
+        }
+        catch(NumberFormatException e){
+            throw new ChessException("Invalid match id: " + s);
+        }
+    }
+    
+    private static String required(Map<String, String> params, String name){
+        String value = params.get(name);
+        if(value == null){
+            throw new ChessException("Missing parameter: " + name);
+        }
+        return value;
+    }
+    
+    private static Map<String, String> params(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+        if(exchange.getRequestMethod().equals("POST")){
+            try(InputStream body = exchange.getRequestBody()){
+                parseForm(new String(body.readNBytes(4096), StandardCharsets.UTF_8), params);
+            }
+        }
+        return params;
+    }
+    
+    private static void parseForm(String form, Map<String, String> params){
+        if(form == null || form.isEmpty()){
+            return;
+        }
+        for(String pair : form.split("&")){
+            int eq = pair.indexOf('=');
+            if(eq > 0){
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8), URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+    }
+    
+    //What readers of one match see.
+    private static class Published {
+        private volatile State state; //Null until the first publish, then replaced as a whole on every change
+        private boolean closed; //Only used on the match thread
+        private final List<EventStream> streams = new CopyOnWriteArrayList<>();
+    }
+    
+    //One version of a match's state JSON; the version is the ETag.
+    private static final class State {
+        private final byte[] body;
+        private final int version;
+        
+        State(byte[] body, int version){
+            this.body = body;
+            this.version = version;
+        }
+    }
+    
+    /*
+    One SSE client. Events are queued and written by the stream executor, so a slow client never holds up
+    the match thread, and its blocking writes never take a thread that serves requests.
+    */
+    private class EventStream {
+        private final HttpExchange exchange;
+        private final Published match;
+        private final Queue<byte[]> events = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        
+        EventStream(HttpExchange exchange, Published match){
+            this.exchange = exchange;
+            this.match = match;
+        }
+        
+        void send(byte[] event){
+            if(closed){
+                return;
+            }
+            if(queued.incrementAndGet() > MAX_QUEUED_EVENTS){
+                close();
+                return;
+            }
+            events.add(event);
+            if(scheduled.compareAndSet(false, true)){
+                streamExecutor.execute(this::drain);
+            }
+        }
+        
+        private void drain(){
+            try{
+                OutputStream body = exchange.getResponseBody();
+                byte[] event;
+                while((event = events.poll()) != null){
+                    queued.decrementAndGet();
+                    body.write(event);
+                }
+                body.flush();
+            }
+            catch(IOException e){
+                close();
+            }
+            scheduled.set(false);
+            if(!events.isEmpty() && scheduled.compareAndSet(false, true)){
+                streamExecutor.execute(this::drain);
+            }
+        }
+        
+        private void close(){
+            closed = true;
+            match.streams.remove(this);
+            exchange.close();
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8080;
+        Metrics.registerMBean();
+        HttpApi api = new HttpApi(new MatchManager(), new InetSocketAddress(port));
+        api.start();
+        System.out.println("Listening on port " + api.getPort());
+    }
+}
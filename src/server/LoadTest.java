@@ -0,0 +1,193 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+Plays random games on a growing number of sessions and prints moves per second and move latency.
+Each session has one simulated player that sends its next move as soon as the previous one is answered.
+With --journal every move is persisted before it is answered, and the journal is replayed afterwards
+to time crash recovery.
+Usage: LoadTest [seconds] [session counts...] [--journal directory [sync interval ms] [shards]]
+*/
+public class LoadTest {
+    
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int end = Arrays.asList(args).indexOf("--journal");
+        if(end < 0){
+            end = args.length;
+        }
+        int seconds = (end > 0) ? Integer.parseInt(args[0]) : 5;
+        int[] sessionCounts = {10, 100, 1000, 10000};
+        if(end > 1){
+            sessionCounts = Arrays.stream(args, 1, end).mapToInt(Integer::parseInt).toArray();
+        }
+        
+        if(end == args.length){
+            System.out.println("sessions    moves/sec    p50 (ms)    p99 (ms)");
+            for(int sessionCount : sessionCounts){
+                run(sessionCount, seconds, null);
+            }
+            return;
+        }
+        
+        Path directory = Paths.get(args[end + 1]);
+        long syncMillis = (args.length > end + 2) ? Long.parseLong(args[end + 2]) : 2;
+        int shards = (args.length > end + 3) ? Integer.parseInt(args[end + 3]) : 4;
+        System.out.println("sessions    moves/sec    p50 (ms)    p99 (ms)    fsyncs/sec    recovered    recovery (ms)");
+        for(int sessionCount : sessionCounts){
+            Path runDirectory = directory.resolve("sessions-" + sessionCount + "-" + System.currentTimeMillis());
+            try(MoveJournal journal = new MoveJournal(runDirectory, shards, syncMillis)){
+                long start = System.nanoTime();
+                run(sessionCount, seconds, journal);
+                System.out.printf(" %13.0f", journal.getSyncs() / ((System.nanoTime() - start) / 1e9));
+            }
+            
+            //Replays everything as if the process had just been restarted
+            long start = System.nanoTime();
+            try(MoveJournal journal = new MoveJournal(runDirectory, shards, syncMillis); MatchManager manager = new MatchManager(journal)){
+                int recovered = manager.recover();
+                System.out.printf(" %12d %16.1f%n", recovered, (System.nanoTime() - start) / 1e6);
+            }
+        }
+    }
+    
+    private static void run(int sessionCount, int seconds, MoveJournal journal) throws InterruptedException {
+        try(MatchManager manager = new MatchManager(journal)){
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+            CountDownLatch done = new CountDownLatch(sessionCount);
+            List<Player> players = new ArrayList<>();
+            
+            long start = System.nanoTime();
+            for(int i = 0; i < sessionCount; i++){
+                Player player = new Player(manager, deadline, done);
+                players.add(player);
+                player.next();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            
+            int moves = 0;
+            for(Player player : players){
+                moves += player.count;
+            }
+            long[] latencies = new long[moves];
+            int k = 0;
+            for(Player player : players){
+                System.arraycopy(player.latencies, 0, latencies, k, player.count);
+                k += player.count;
+            }
+            Arrays.sort(latencies);
+            
+            System.out.printf("%8d %12.0f %11.3f %11.3f", sessionCount, moves / (elapsed / 1e9),
+                    percentile(latencies, 0.50) / 1e6, percentile(latencies, 0.99) / 1e6);
+            if(journal == null){
+                System.out.println();
+            }
+        }
+    }
+    
+    private static long percentile(long[] sorted, double p){
+        if(sorted.length == 0){
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))];
+    }
+    
+    //Runs on the match thread: picks a random legal move, false when the game is over.
+    private static boolean playRandomMove(ChessMatch chessMatch){
+        if(chessMatch.getCheckmate() || chessMatch.getDraw()){
+            return false;
+        }
+        List<ChessPosition[]> candidates = new ArrayList<>();
+        ChessPiece[][] pieces = chessMatch.getPieces();
+        
+        for(int i = 0; i < pieces.length; i++){
+            for(int j = 0; j < pieces.length; j++){
+                if(pieces[i][j] != null && pieces[i][j].getColor() == chessMatch.getCurrentPlayer()){
+                    ChessPosition source = ChessPosition.of((char) ('a' + j), 8 - i);
+                    boolean[][] mat;
+                    try{
+                        mat = chessMatch.possibleMoves(source);
+                    }
+                    catch(ChessException e){
+                        continue;
+                    }
+                    for(int r = 0; r < mat.length; r++){
+                        for(int c = 0; c < mat.length; c++){
+                            if(mat[r][c]){
+                                candidates.add(new ChessPosition[] {source, ChessPosition.of((char) ('a' + c), 8 - r)});
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        Collections.shuffle(candidates, ThreadLocalRandom.current());
+        
+        for(ChessPosition[] move : candidates){
+            try{
+                chessMatch.performChessMove(move[0], move[1]);
+                return true;
+            }
+            catch(ChessException e){
+                //Leaves the king in check, try the next one
+            }
+        }
+        return false;
+    }
+    
+    private static class Player {
+        private final MatchManager manager;
+        private final long deadline;
+        private final CountDownLatch done;
+        private MatchSession session;
+        private long[] latencies = new long[1024];
+        private int count;
+        
+        Player(MatchManager manager, long deadline, CountDownLatch done){
+            this.manager = manager;
+            this.deadline = deadline;
+            this.done = done;
+            this.session = manager.createMatch();
+        }
+        
+        void next(){
+            if(System.nanoTime() >= deadline){
+                done.countDown();
+                return;
+            }
+            long start = System.nanoTime();
+            session.submit(LoadTest::playRandomMove).whenComplete((moved, e) -> {
+                if(e == null && moved){
+                    record(System.nanoTime() - start);
+                }
+                else{
+                    //Game over, start a new one
+                    manager.closeMatch(session.getId());
+                    session = manager.createMatch();
+                }
+                next();
+            });
+        }
+        
+        private void record(long nanos){
+            if(count == latencies.length){
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+    }
+}
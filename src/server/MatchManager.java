@@ -0,0 +1,171 @@
+package server;
+
+import chess.ChessMatch;
+import chess.VirtualThreads;
+import chess.clock.ClockMode;
+import chess.clock.GameClock;
+import chess.clock.TimingWheel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+Hosts any number of independent matches. A session only holds a thread while it has commands
+to run, so thousands of idle matches cost no threads at all.
+*/
+public class MatchManager implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Map<Long, MatchSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final MoveJournal journal; //Null when the matches aren't persisted
+    private TimingWheel wheel; //Shared by the clocks of all timed matches, started with the first one
+    
+    public MatchManager(){
+        this(newSessionExecutor(), null);
+    }
+    
+    public MatchManager(ExecutorService executor){
+        this(executor, null);
+    }
+    
+    public MatchManager(MoveJournal journal){
+        this(newSessionExecutor(), journal);
+    }
+    
+    public MatchManager(ExecutorService executor, MoveJournal journal){
+        this.executor = executor;
+        this.journal = journal;
+    }
+    
+    public MatchSession createMatch(){
+        return createMatch(new ChessMatch());
+    }
+    
+    /*
+    A timed match, white's clock starts right away. The clock is set on the match thread, and a flag from
+    the wheel thread is handed back to it to end the game on time. Clocks aren't journaled, a recovered
+    match is untimed.
+    */
+    public MatchSession createMatch(long baseMillis, long bonusMillis, ClockMode mode){
+        MatchSession session = createMatch(new ChessMatch());
+        TimingWheel wheel = wheel();
+        session.submit(chessMatch -> {
+            chessMatch.setClock(new GameClock(wheel, baseMillis, bonusMillis, mode, color -> session.submit(match -> {
+                match.loseOnTime(color);
+                return null;
+            })));
+            return null;
+        });
+        return session;
+    }
+    
+    private MatchSession createMatch(ChessMatch chessMatch){
+        long id = nextId.getAndIncrement();
+        if(journal != null){
+            journal.append(id, MoveJournal.NEW, 0, 0, 0, 0);
+        }
+        MatchSession session = new MatchSession(id, executor, chessMatch, journal);
+        sessions.put(id, session);
+        return session;
+    }
+    
+    private synchronized TimingWheel wheel(){
+        if(wheel == null){
+            wheel = new TimingWheel();
+        }
+        return wheel;
+    }
+    
+    //Brings back the matches found in the journal, keeping their ids. Call it once, before creating any match.
+    public int recover() throws IOException {
+        if(journal == null){
+            return 0;
+        }
+        Map<Long, ChessMatch> recovered = journal.recover();
+        for(Map.Entry<Long, ChessMatch> entry : recovered.entrySet()){
+            long id = entry.getKey();
+            sessions.put(id, new MatchSession(id, executor, entry.getValue(), journal));
+            nextId.accumulateAndGet(id + 1, Math::max);
+        }
+        return recovered.size();
+    }
+    
+    public MatchSession getMatch(long id){
+        return sessions.get(id);
+    }
+    
+    public Collection<MatchSession> getMatches(){
+        return Collections.unmodifiableCollection(sessions.values());
+    }
+    
+    public int size(){
+        return sessions.size();
+    }
+    
+    public MatchSession closeMatch(long id){
+        MatchSession session = sessions.remove(id);
+        if(session != null && journal != null){
+            journal.append(id, MoveJournal.CLOSE, 0, 0, 0, 0);
+        }
+        return session;
+    }
+    
+    /*
+    Parks every match left alone for at least the given time, see MatchSession. Meant to be called
+    now and then by the host; it waits for the sessions to answer and returns how many were parked.
+    */
+    public int parkIdle(long idleMillis){
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        List<CompletableFuture<Boolean>> parked = new ArrayList<>();
+        for(MatchSession session : sessions.values()){
+            if(!session.isParked()){
+                parked.add(session.park(idleNanos));
+            }
+        }
+        int count = 0;
+        for(CompletableFuture<Boolean> future : parked){
+            if(future.join()){
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    @Override
+    public void close(){
+        sessions.clear();
+        synchronized(this){
+            if(wheel != null){
+                wheel.close();
+            }
+        }
+        executor.shutdown();
+        try{
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    //Virtual threads when the JVM has them, otherwise one platform thread per core.
+    static ExecutorService newSessionExecutor(){
+        ExecutorService executor = VirtualThreads.newExecutor();
+        return (executor != null) ? executor : Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+    
+    //For tasks that block on slow clients: without virtual threads each of them gets a pooled thread of its own.
+    static ExecutorService newBlockingExecutor(){
+        ExecutorService executor = VirtualThreads.newExecutor();
+        return (executor != null) ? executor : Executors.newCachedThreadPool();
+    }
+}
@@ -0,0 +1,229 @@
+package server;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.IdleMatch;
+import chess.Moves;
+import chess.MoveRecord;
+import chess.PieceCode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/*
+One hosted match. Every command goes through the session's queue and is run by at most one
+thread at a time, so the ChessMatch itself never needs locking and nothing is shared between sessions.
+A session left alone can be parked as an IdleMatch; the next command brings the match back.
+Timed matches are never parked, their clocks keep running.
+*/
+public class MatchSession {
+    private static final int BATCH = 64; //Commands run before the session gives its thread back
+    
+    private final long id;
+    private ChessMatch chessMatch; //Null while parked
+    private volatile IdleMatch idle; //Only set while parked
+    private volatile long lastActive = System.nanoTime();
+    private final Executor executor;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    
+    private final MoveJournal journal; //Null when the matches aren't persisted
+    private final ArrayList<MoveRecord> journaled = new ArrayList<>(); //The move history as the journal knows it
+    private ChessPiece journaledPromotion; //Promoted piece of the last journaled move
+    
+    MatchSession(long id, Executor executor){
+        this(id, executor, new ChessMatch(), null);
+    }
+    
+    MatchSession(long id, Executor executor, ChessMatch chessMatch, MoveJournal journal){
+        this.id = id;
+        this.executor = executor;
+        this.chessMatch = chessMatch;
+        this.journal = journal;
+        resetJournaled();
+    }
+    
+    public long getId(){
+        return id;
+    }
+    
+    public boolean isParked(){
+        return idle != null;
+    }
+    
+    /*
+    Runs the command on the match thread. The future fails with whatever the command throws, e.g. a ChessException.
+    With a journal, it completes only once the changes the command made are on disk.
+    */
+    public <T> CompletableFuture<T> submit(Function<ChessMatch, T> command){
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(() -> {
+            T value = null;
+            RuntimeException failure = null;
+            CompletableFuture<Void> durable;
+            try{
+                if(chessMatch == null){
+                    chessMatch = idle.toMatch();
+                    idle = null;
+                    resetJournaled(); //Same moves, new records
+                }
+                lastActive = System.nanoTime();
+                
+                try{
+                    value = command.apply(chessMatch);
+                }
+                catch(RuntimeException e){
+                    failure = e;
+                }
+                
+                durable = (journal == null) ? null : journalChanges();
+            }
+            catch(RuntimeException e){
+                //Bringing the match back or journaling failed, e.g. on a closed journal
+                result.completeExceptionally(e);
+                return;
+            }
+            
+            if(durable == null){
+                complete(result, value, failure);
+            }
+            else{
+                T v = value;
+                RuntimeException f = failure;
+                durable.whenComplete((ignored, e) -> {
+                    if(e != null){
+                        result.completeExceptionally(e);
+                    }
+                    else{
+                        complete(result, v, f);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+    
+    //Parks the match if no command ran for the given time. Completes with true if it was parked by this call.
+    CompletableFuture<Boolean> park(long idleNanos){
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        enqueue(() -> {
+            if(chessMatch == null || chessMatch.getClock() != null || System.nanoTime() - lastActive < idleNanos){
+                result.complete(false);
+                return;
+            }
+            try{
+                idle = IdleMatch.of(chessMatch);
+            }
+            catch(RuntimeException e){
+                result.completeExceptionally(e);
+                return;
+            }
+            chessMatch = null;
+            resetJournaled();
+            result.complete(true);
+        });
+        return result;
+    }
+    
+    private void enqueue(Runnable command){
+        commands.add(command);
+        if(scheduled.compareAndSet(false, true)){
+            executor.execute(this::drain);
+        }
+    }
+    
+    public CompletableFuture<ChessPiece> performChessMove(ChessPosition source, ChessPosition target){
+        return submit(match -> match.performChessMove(source, target));
+    }
+    
+    public CompletableFuture<ChessPiece> replacePromotedPiece(String type){
+        return submit(match -> match.replacePromotedPiece(type));
+    }
+    
+    private static <T> void complete(CompletableFuture<T> result, T value, RuntimeException failure){
+        if(failure != null){
+            result.completeExceptionally(failure);
+        }
+        else{
+            result.complete(value);
+        }
+    }
+    
+    /*
+    Commands can do anything to the match, so instead of trusting them the move history is compared
+    with what was journaled: moves taken back become UNDO records, new ones MOVE records, and a changed
+    promotion choice on the last move a PROMOTE record. Returns the future of the last record, null if nothing changed.
+    */
+    private CompletableFuture<Void> journalChanges(){
+        List<MoveRecord> history = chessMatch.getMoveHistory();
+        CompletableFuture<Void> durable = null;
+        
+        int common = Math.min(history.size(), journaled.size());
+        while(common > 0 && history.get(common - 1) != journaled.get(common - 1)){
+            common--;
+        }
+        while(journaled.size() > common){
+            journaled.remove(journaled.size() - 1);
+            durable = journal.append(id, MoveJournal.UNDO, journaled.size(), 0, 0, 0);
+            journaledPromotion = journaled.isEmpty() ? null : journaled.get(journaled.size() - 1).getPromotedPiece();
+        }
+        while(journaled.size() < history.size()){
+            MoveRecord record = history.get(journaled.size());
+            journaled.add(record);
+            journaledPromotion = record.getPromotedPiece();
+            durable = journal.append(id, MoveJournal.MOVE, journaled.size(), Moves.square(record.getSource()), Moves.square(record.getTarget()),
+                    promotionType(journaledPromotion));
+        }
+        if(!journaled.isEmpty() && journaled.get(journaled.size() - 1).getPromotedPiece() != journaledPromotion){
+            journaledPromotion = journaled.get(journaled.size() - 1).getPromotedPiece();
+            durable = journal.append(id, MoveJournal.PROMOTE, journaled.size(), 0, 0, promotionType(journaledPromotion));
+        }
+        return durable;
+    }
+    
+    private void resetJournaled(){
+        journaled.clear();
+        journaledPromotion = null;
+        if(chessMatch == null){
+            journaled.trimToSize();
+            return;
+        }
+        journaled.addAll(chessMatch.getMoveHistory());
+        if(!journaled.isEmpty()){
+            journaledPromotion = journaled.get(journaled.size() - 1).getPromotedPiece();
+        }
+    }
+    
+    private static int promotionType(ChessPiece piece){
+        return (piece == null) ? PieceCode.EMPTY : PieceCode.typeOf(piece);
+    }
+    
+    private void drain(){
+        try{
+            Runnable command;
+            int count = 0;
+            while(count++ < BATCH && (command = commands.poll()) != null){
+                try{
+                    command.run();
+                }
+                catch(RuntimeException e){
+                    //Commands report failures through their futures. One that gets out mustn't stop the ones behind it.
+                }
+            }
+        }
+        finally{
+            scheduled.set(false);
+        }
+        
+        //A command may have arrived after the last poll but before the flag was cleared.
+        if(!commands.isEmpty() && scheduled.compareAndSet(false, true)){
+            executor.execute(this::drain);
+        }
+    }
+}
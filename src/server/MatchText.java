@@ -0,0 +1,118 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PieceCode;
+
+//Plain text forms of positions and match state shared by the network front ends.
+final class MatchText {
+    
+    private MatchText(){
+    }
+    
+    static ChessPosition parsePosition(String s){
+        if(s.length() != 2){
+            throw new ChessException("Invalid position: " + s);
+        }
+        return ChessPosition.of(Character.toLowerCase(s.charAt(0)), s.charAt(1) - '0');
+    }
+    
+    //The board as 64 letters from a8 to h1, '-' for empty squares.
+    static void appendBoard(StringBuilder sb, ChessMatch chessMatch){
+        for(ChessPiece[] row : chessMatch.getPieces()){
+            for(ChessPiece piece : row){
+                sb.append(PieceCode.letter(PieceCode.of(piece)));
+            }
+        }
+    }
+    
+    static String status(ChessMatch chessMatch){
+        if(chessMatch.getCheckmate()){
+            return "CHECKMATE";
+        }
+        if(chessMatch.getDraw()){
+            return "DRAW:" + chessMatch.getDrawReason();
+        }
+        if(chessMatch.getLostOnTime() != null){
+            return "TIME:" + chessMatch.getLostOnTime();
+        }
+        return chessMatch.getCheck() ? "CHECK" : "PLAYING";
+    }
+    
+    //STATE <id> <board> <turn> <player> <status> [PROMOTE]
+    static String state(long id, ChessMatch chessMatch){
+        StringBuilder sb = new StringBuilder(100);
+        sb.append("STATE ").append(id).append(' ');
+        appendBoard(sb, chessMatch);
+        sb.append(' ').append(chessMatch.getTurn());
+        sb.append(' ').append(chessMatch.getCurrentPlayer());
+        sb.append(' ').append(status(chessMatch));
+        if(chessMatch.getPromoted() != null){
+            sb.append(" PROMOTED");
+        }
+        return sb.toString();
+    }
+    
+    //The state as a JSON object, rows of the board from the 8th rank down.
+    static String json(long id, ChessMatch chessMatch){
+        StringBuilder sb = new StringBuilder(400);
+        sb.append("{\"id\":").append(id);
+        sb.append(",\"ply\":").append(chessMatch.getMoveHistory().size());
+        sb.append(",\"turn\":").append(chessMatch.getTurn());
+        sb.append(",\"currentPlayer\":\"").append(chessMatch.getCurrentPlayer()).append('"');
+        sb.append(",\"check\":").append(chessMatch.getCheck());
+        sb.append(",\"checkmate\":").append(chessMatch.getCheckmate());
+        sb.append(",\"draw\":").append(chessMatch.getDraw() ? "\"" + chessMatch.getDrawReason() + "\"" : "null");
+        sb.append(",\"lostOnTime\":").append((chessMatch.getLostOnTime() != null) ? "\"" + chessMatch.getLostOnTime() + "\"" : "null");
+        sb.append(",\"promoted\":").append(chessMatch.getPromoted() != null);
+        int ply = chessMatch.getMoveHistory().size();
+        sb.append(",\"lastMove\":").append((ply > 0) ? "\"" + chessMatch.getMoveHistory().get(ply - 1) + "\"" : "null");
+        sb.append(",\"board\":[");
+        ChessPiece[][] pieces = chessMatch.getPieces();
+        for(int i = 0; i < pieces.length; i++){
+            sb.append((i > 0) ? ",\"" : "\"");
+            for(ChessPiece piece : pieces[i]){
+                sb.append(PieceCode.letter(PieceCode.of(piece)));
+            }
+            sb.append('"');
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+    
+    static String jsonMoves(ChessPosition source, boolean[][] possibleMoves){
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("{\"from\":\"").append(source).append("\",\"targets\":[");
+        boolean first = true;
+        for(int i = 0; i < possibleMoves.length; i++){
+            for(int j = 0; j < possibleMoves[i].length; j++){
+                if(possibleMoves[i][j]){
+                    sb.append(first ? "\"" : ",\"").append((char) ('a' + j)).append(8 - i).append('"');
+                    first = false;
+                }
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+    
+    static String jsonError(String message){
+        return "{\"error\":\"" + String.valueOf(message).replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+    
+    //MOVES <id> <source> <targets...>
+    static String moves(long id, ChessPosition source, boolean[][] possibleMoves){
+        StringBuilder sb = new StringBuilder(64);
+        sb.append("MOVES ").append(id).append(' ').append(source);
+        for(int i = 0; i < possibleMoves.length; i++){
+            for(int j = 0; j < possibleMoves[i].length; j++){
+                if(possibleMoves[i][j]){
+                    sb.append(' ').append((char) ('a' + j)).append(8 - i);
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,299 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessMatch;
+import chess.Moves;
+import chess.PieceCode;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+Append-only journal of every committed change of the hosted matches, split into shard files by match id.
+Records are 16 bytes: match id, ply, kind, source, target, promotion and a checksum. Appends only copy
+the record into the shard's buffer; a single flusher thread writes the buffers and fsyncs every shard
+once per sync interval, completing the futures of everything the sync covered (group commit).
+*/
+public class MoveJournal implements AutoCloseable {
+    static final int NEW = 1;
+    static final int MOVE = 2;
+    static final int PROMOTE = 3;
+    static final int UNDO = 4;
+    static final int CLOSE = 5;
+    
+    static final int RECORD_SIZE = 16;
+    private static final int BUFFER_RECORDS = 4096;
+    
+    private final Path directory;
+    private final Shard[] shards;
+    private final long syncIntervalNanos;
+    private final Thread flusher;
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+    private volatile boolean closed;
+    
+    //A sync interval of 0 syncs as soon as there is something to write.
+    public MoveJournal(Path directory, int shardCount, long syncIntervalMillis) throws IOException {
+        if(shardCount < 1){
+            throw new IllegalArgumentException("At least one shard is needed.");
+        }
+        this.directory = directory;
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncIntervalMillis);
+        Files.createDirectories(directory);
+    
+        shards = new Shard[shardCount];
+        for(int i = 0; i < shardCount; i++){
+            shards[i] = new Shard(FileChannel.open(shardFile(i), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE));
+        }
+    
+        flusher = new Thread(this::flushLoop, "move-journal");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+    
+    public Path getDirectory(){
+        return directory;
+    }
+    
+    public long getAppended(){
+        return appended.get();
+    }
+    
+    public long getSyncs(){
+        return syncs.get();
+    }
+    
+    /*
+    Rebuilds every match that wasn't closed by replaying its records through ChessMatch. A torn record
+    at the end of a shard (the process died mid-write) is cut off, later appends continue after it.
+    Call it before the first append.
+    */
+    public Map<Long, ChessMatch> recover() throws IOException {
+        Map<Long, ChessMatch> matches = new HashMap<>();
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_RECORDS * RECORD_SIZE);
+    
+        for(Shard shard : shards){
+            synchronized(shard){
+                FileChannel channel = shard.channel;
+                long position = 0;
+                channel.position(0);
+                buf.clear();
+    
+                boolean torn = false;
+                while(!torn && channel.read(buf) > 0){
+                    buf.flip();
+                    while(buf.remaining() >= RECORD_SIZE){
+                        if(!replay(buf, matches)){
+                            torn = true;
+                            break;
+                        }
+                        position += RECORD_SIZE;
+                    }
+                    buf.compact();
+                }
+                channel.truncate(position);
+                channel.position(position);
+            }
+        }
+        return matches;
+    }
+    
+    private boolean replay(ByteBuffer buf, Map<Long, ChessMatch> matches) throws IOException {
+        int start = buf.position();
+        long id = buf.getLong();
+        int ply = buf.getShort() & 0xFFFF;
+        int kind = buf.get();
+        int source = buf.get();
+        int target = buf.get();
+        int promotion = buf.get();
+        int checksum = buf.getShort() & 0xFFFF;
+        if(checksum != checksum(id, ply, kind, source, target, promotion)){
+            buf.position(start);
+            return false;
+        }
+    
+        try{
+            if(kind == NEW){
+                matches.put(id, new ChessMatch());
+                return true;
+            }
+            if(kind == CLOSE){
+                matches.remove(id);
+                return true;
+            }
+            ChessMatch match = matches.get(id);
+            if(match == null){
+                throw new IOException("Journal record for unknown match " + id);
+            }
+            switch(kind){
+                case MOVE:
+                    match.performChessMove(Moves.chessPosition(source), Moves.chessPosition(target));
+                    if(promotion != PieceCode.EMPTY && promotion != PieceCode.QUEEN){
+                        match.replacePromotedPiece(String.valueOf(PieceCode.letter(promotion)));
+                    }
+                    break;
+                case PROMOTE:
+                    match.replacePromotedPiece(String.valueOf(PieceCode.letter(promotion)));
+                    break;
+                case UNDO:
+                    match.undoLastMove();
+                    break;
+                default:
+                    throw new IOException("Unknown journal record kind " + kind);
+            }
+            if(match.getMoveHistory().size() != ply){
+                throw new IOException("Journal out of step with match " + id + " at ply " + ply);
+            }
+            return true;
+        }
+        catch(ChessException | IllegalStateException e){
+            throw new IOException("Journal replay failed for match " + id + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /*
+    Buffers one record. The future completes once the record is on disk. A full buffer is written
+    by the appender itself, so memory stays bounded however far behind the flusher is.
+    */
+    CompletableFuture<Void> append(long id, int kind, int ply, int source, int target, int promotion){
+        if(closed){
+            throw new IllegalStateException("The journal is closed.");
+        }
+        Shard shard = shards[(int) Math.floorMod(id, (long) shards.length)];
+        CompletableFuture<Void> durable;
+        synchronized(shard){
+            ByteBuffer buf = shard.buffer;
+            if(buf.remaining() < RECORD_SIZE){
+                try{
+                    shard.write();
+                }
+                catch(IOException e){
+                    //The buffered records are lost, fail everyone waiting for them
+                    shard.pending.completeExceptionally(e);
+                    shard.pending = new CompletableFuture<>();
+                    shard.dirty = false;
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            buf.putLong(id);
+            buf.putShort((short) ply);
+            buf.put((byte) kind);
+            buf.put((byte) source);
+            buf.put((byte) target);
+            buf.put((byte) promotion);
+            buf.putShort((short) checksum(id, ply, kind, source, target, promotion));
+            shard.dirty = true;
+            durable = shard.pending;
+        }
+        appended.incrementAndGet();
+        if(syncIntervalNanos == 0){
+            LockSupport.unpark(flusher);
+        }
+        return durable;
+    }
+    
+    private void flushLoop(){
+        while(!closed){
+            LockSupport.parkNanos(this, (syncIntervalNanos == 0) ? TimeUnit.MILLISECONDS.toNanos(100) : syncIntervalNanos);
+            sync();
+        }
+        sync();
+    }
+    
+    //Writes and fsyncs every shard with buffered records, then completes their futures.
+    private void sync(){
+        boolean synced = false;
+        for(Shard shard : shards){
+            CompletableFuture<Void> durable;
+            synchronized(shard){
+                if(!shard.dirty){
+                    continue;
+                }
+                durable = shard.pending;
+                shard.pending = new CompletableFuture<>();
+                shard.dirty = false;
+                try{
+                    shard.write();
+                }
+                catch(IOException e){
+                    durable.completeExceptionally(e);
+                    continue;
+                }
+            }
+            //Outside the lock: appenders keep filling the buffer while the disk catches up.
+            try{
+                shard.channel.force(false);
+                durable.complete(null);
+                synced = true;
+            }
+            catch(IOException e){
+                durable.completeExceptionally(e);
+            }
+        }
+        if(synced){
+            syncs.incrementAndGet();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        LockSupport.unpark(flusher);
+        try{
+            flusher.join();
+        }
+        catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+        for(Shard shard : shards){
+            shard.channel.close();
+        }
+    }
+    
+    private Path shardFile(int shard){
+        return directory.resolve("journal-" + shard + ".log");
+    }
+    
+    //Catches torn and zeroed records; a zeroed record never matches because of the constant.
+    private static int checksum(long id, int ply, int kind, int source, int target, int promotion){
+        long h = id * 0x9E3779B97F4A7C15L;
+        h ^= ((long) ply << 32) | (kind << 24) | ((source & 0xFF) << 16) | ((target & 0xFF) << 8) | (promotion & 0xFF);
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return (int) ((h ^ (h >>> 16) ^ (h >>> 32) ^ 0x5A5A) & 0xFFFF);
+    }
+    
+    private static class Shard {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_RECORDS * RECORD_SIZE);
+        private CompletableFuture<Void> pending = new CompletableFuture<>();
+        private boolean dirty;
+    
+        Shard(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(channel.size());
+        }
+    
+        //Called with the shard locked. The buffer is empty afterwards, even if the write failed.
+        void write() throws IOException {
+            buffer.flip();
+            try{
+                while(buffer.hasRemaining()){
+                    channel.write(buffer);
+                }
+            }
+            finally{
+                buffer.clear();
+            }
+        }
+    }
+}
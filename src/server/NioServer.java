@@ -0,0 +1,423 @@
+package server;
+
+import chess.ChessException;
+import chess.ChessPosition;
+import chess.metrics.Metrics;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+Line based TCP front end. One selector thread owns every socket; commands are handed to the
+match sessions and their answers come back through each connection's outbox.
+
+    NEW                         -> OK <id>, the connection starts watching the new match
+    WATCH <id>                  -> OK <id>, then the current STATE
+    STATE <id>                  -> STATE <id> <board> <turn> <player> <status> [PROMOTED]
+    MOVES <id> <source>         -> MOVES <id> <source> <targets...>
+    MOVE <id> <source> <target> -> OK, then STATE to every watcher
+    PROMOTE <id> <B|N|R|Q>      -> OK, then STATE to every watcher
+    QUIT
+Errors are answered with ERR <message>.
+*/
+public class NioServer implements Runnable, AutoCloseable {
+    private static final int MAX_LINE = 256;
+    private static final int MAX_PENDING_BYTES = 1 << 20; //Clients that stop reading are dropped
+    
+    private final MatchManager manager;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    
+    //Both buffers belong to the selector thread and are reused for every read and write.
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16 * 1024);
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(64 * 1024);
+    
+    private final Queue<Connection> readyToWrite = new ConcurrentLinkedQueue<>();
+    private final Map<Long, Set<Connection>> watchers = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+    
+    public NioServer(MatchManager manager, InetSocketAddress address) throws IOException {
+        this.manager = manager;
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address, 1024);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+    }
+    
+    public int getPort(){
+        return serverChannel.socket().getLocalPort();
+    }
+    
+    public Thread start(){
+        Thread thread = new Thread(this, "nio-server");
+        thread.start();
+        return thread;
+    }
+    
+    @Override
+    public void run(){
+        try{
+            while(running){
+                selector.select();
+                
+                Connection ready;
+                while((ready = readyToWrite.poll()) != null){
+                    try{
+                        ready.flush();
+                    }
+                    catch(RuntimeException e){
+                        ready.close();
+                    }
+                }
+                
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()){
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try{
+                        if(!key.isValid()){
+                            continue;
+                        }
+                        if(key.isAcceptable()){
+                            accept();
+                        }
+                        else{
+                            Connection connection = (Connection) key.attachment();
+                            if(key.isReadable()){
+                                connection.read();
+                            }
+                            if(key.isValid() && key.isWritable()){
+                                connection.flush();
+                            }
+                        }
+                    }
+                    catch(IOException e){
+                        if(key.attachment() != null){
+                            ((Connection) key.attachment()).close();
+                        }
+                    }
+                    catch(RuntimeException e){
+                        //A bug in serving one client takes down that connection, not the selector thread.
+                        if(key.attachment() != null){
+                            ((Connection) key.attachment()).fail("Internal error: " + e);
+                        }
+                    }
+                }
+            }
+        }
+        catch(IOException e){
+            throw new IllegalStateException("Selector failed.", e);
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        serverChannel.close();
+        for(SelectionKey key : selector.keys()){
+            key.channel().close();
+        }
+        selector.close();
+    }
+    
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while((channel = serverChannel.accept()) != null){
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+    
+    private void handle(Connection connection, String line){
+        String[] args = line.trim().split("\\s+");
+        try{
+            switch(args[0].toUpperCase()){
+                case "NEW": {
+                    MatchSession session = manager.createMatch();
+                    watch(session.getId(), connection);
+                    connection.send("OK " + session.getId());
+                    break;
+                }
+                case "WATCH": {
+                    MatchSession session = session(args, 2);
+                    watch(session.getId(), connection);
+                    connection.send("OK " + session.getId());
+                    reply(connection, session.submit(match -> MatchText.state(session.getId(), match)));
+                    break;
+                }
+                case "STATE": {
+                    MatchSession session = session(args, 2);
+                    reply(connection, session.submit(match -> MatchText.state(session.getId(), match)));
+                    break;
+                }
+                case "MOVES": {
+                    MatchSession session = session(args, 3);
+                    ChessPosition source = MatchText.parsePosition(args[2]);
+                    reply(connection, session.submit(match -> MatchText.moves(session.getId(), source, match.possibleMoves(source))));
+                    break;
+                }
+                case "MOVE": {
+                    MatchSession session = session(args, 4);
+                    ChessPosition source = MatchText.parsePosition(args[2]);
+                    ChessPosition target = MatchText.parsePosition(args[3]);
+                    reply(connection, session.submit(match -> {
+                        match.performChessMove(source, target);
+                        connection.send("OK");
+                        broadcast(session.getId(), MatchText.state(session.getId(), match));
+                        return null;
+                    }));
+                    break;
+                }
+                case "PROMOTE": {
+                    MatchSession session = session(args, 3);
+                    String type = args[2].toUpperCase();
+                    reply(connection, session.submit(match -> {
+                        match.replacePromotedPiece(type);
+                        connection.send("OK");
+                        broadcast(session.getId(), MatchText.state(session.getId(), match));
+                        return null;
+                    }));
+                    break;
+                }
+                case "QUIT":
+                    connection.close();
+                    break;
+                default:
+                    connection.send("ERR Unknown command: " + args[0]);
+            }
+        }
+        catch(ChessException e){
+            connection.send("ERR " + e.getMessage());
+        }
+    }
+    
+    private MatchSession session(String[] args, int length){
+        if(args.length != length){
+            throw new ChessException("Wrong number of arguments for " + args[0]);
+        }
+        MatchSession session;
+        try{
+            session = manager.getMatch(Long.parseLong(args[1]));
+        }
+        catch(NumberFormatException e){
+            throw new ChessException("Invalid match id: " + args[1]);
+        }
+        if(session == null){
+            throw new ChessException("There is no match " + args[1]);
+        }
+        return session;
+    }
+    
+    //Sends the answer, or the error the command failed with. A null answer means the command replied itself.
+    private void reply(Connection connection, CompletableFuture<String> answer){
+        answer.whenComplete((text, e) -> {
+            if(e != null){
+                Throwable cause = (e instanceof CompletionException) ? e.getCause() : e;
+                connection.send("ERR " + cause.getMessage());
+            }
+            else if(text != null){
+                connection.send(text);
+            }
+        });
+    }
+    
+    private void watch(long id, Connection connection){
+        watchers.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(connection);
+        connection.watching.add(id);
+    }
+    
+    private void broadcast(long id, String text){
+        Set<Connection> set = watchers.get(id);
+        if(set != null){
+            //Encoded once for every watcher
+            byte[] bytes = (text + "\n").getBytes(StandardCharsets.US_ASCII);
+            for(Connection connection : set){
+                connection.send(bytes);
+            }
+        }
+    }
+    
+    private class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private final StringBuilder line = new StringBuilder();
+        private final Set<Long> watching = ConcurrentHashMap.newKeySet();
+        
+        //Filled by any thread, emptied by the selector thread
+        private final Queue<byte[]> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private final AtomicInteger outboxBytes = new AtomicInteger();
+        private volatile boolean overflow;
+        private ByteBuffer unsent; //What the socket didn't take on the last write
+        
+        Connection(SocketChannel channel){
+            this.channel = channel;
+        }
+        
+        void read() throws IOException {
+            readBuffer.clear();
+            int n = channel.read(readBuffer);
+            if(n < 0){
+                close();
+                return;
+            }
+            readBuffer.flip();
+            while(readBuffer.hasRemaining()){
+                char c = (char) (readBuffer.get() & 0xFF);
+                if(c == '\n'){
+                    String text = line.toString();
+                    line.setLength(0);
+                    if(!text.trim().isEmpty()){
+                        handle(this, text);
+                    }
+                }
+                else if(c != '\r'){
+                    line.append(c);
+                    if(line.length() > MAX_LINE){
+                        close();
+                        return;
+                    }
+                }
+            }
+        }
+        
+        void send(String text){
+            send((text + "\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        
+        void send(byte[] bytes){
+            if(!channel.isOpen()){
+                return;
+            }
+            if(outboxBytes.addAndGet(bytes.length) > MAX_PENDING_BYTES){
+                overflow = true; //Closed by the selector thread on its next flush
+            }
+            else{
+                outbox.add(bytes);
+            }
+            if(queued.compareAndSet(false, true)){
+                readyToWrite.add(this);
+                selector.wakeup();
+            }
+        }
+        
+        //Packs as many queued messages as fit into the shared direct buffer for each write.
+        void flush(){
+            queued.set(false);
+            if(overflow){
+                close();
+                return;
+            }
+            try{
+                while(true){
+                    if(unsent != null){
+                        channel.write(unsent);
+                        if(unsent.hasRemaining()){
+                            waitForWritable();
+                            return;
+                        }
+                        unsent = null;
+                    }
+                    
+                    byte[] bytes = outbox.peek();
+                    if(bytes == null){
+                        break;
+                    }
+                    if(bytes.length > writeBuffer.capacity()){
+                        //Larger than the whole buffer, rare enough to be written on its own
+                        unsent = ByteBuffer.wrap(take());
+                        continue;
+                    }
+                    
+                    writeBuffer.clear();
+                    while(bytes != null && bytes.length <= writeBuffer.remaining()){
+                        writeBuffer.put(take());
+                        bytes = outbox.peek();
+                    }
+                    writeBuffer.flip();
+                    channel.write(writeBuffer);
+                    if(writeBuffer.hasRemaining()){
+                        unsent = ByteBuffer.allocate(writeBuffer.remaining());
+                        unsent.put(writeBuffer).flip();
+                    }
+                }
+                if(key.isValid()){
+                    key.interestOps(SelectionKey.OP_READ);
+                }
+            }
+            catch(IOException e){
+                close();
+            }
+        }
+        
+        private byte[] take(){
+            byte[] bytes = outbox.poll();
+            outboxBytes.addAndGet(-bytes.length);
+            return bytes;
+        }
+        
+        private void waitForWritable(){
+            if(key.isValid()){
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+        
+        //Writes a last error straight to the socket, as far as it takes it, and closes the connection.
+        void fail(String message){
+            if(channel.isOpen() && unsent == null && outbox.isEmpty()){
+                try{
+                    channel.write(ByteBuffer.wrap(("ERR " + message + "\n").getBytes(StandardCharsets.US_ASCII)));
+                }
+                catch(IOException e){
+                    //Closed below anyway
+                }
+            }
+            close();
+        }
+        
+        void close(){
+            for(Long id : watching){
+                Set<Connection> set = watchers.get(id);
+                if(set != null){
+                    set.remove(this);
+                }
+            }
+            key.cancel();
+            try{
+                channel.close();
+            }
+            catch(IOException e){
+                //Nothing left to do with it
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 7000;
+        Metrics.registerMBean();
+        MatchManager manager = new MatchManager();
+        NioServer server = new NioServer(manager, new InetSocketAddress(port));
+        System.out.println("Listening on port " + server.getPort());
+        server.run();
+    }
+}
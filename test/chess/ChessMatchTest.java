@@ -0,0 +1,60 @@
+package chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ChessMatchTest {
+    
+    @Test
+    public void noMoveAfterCheckmate(){
+        ChessMatch match = play(new ChessMatch(), "f2", "f3", "e7", "e5", "g2", "g4", "d8", "h4");
+        assertTrue(match.getCheckmate());
+        assertRefused(match, "a2", "a3");
+    }
+    
+    @Test
+    public void noMoveAfterThreefoldRepetition(){
+        ChessMatch match = play(new ChessMatch(), "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8", "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8");
+        assertEquals(DrawReason.THREEFOLD_REPETITION, match.getDrawReason());
+        assertRefused(match, "e2", "e4");
+    }
+    
+    @Test
+    public void noMoveAfterFiftyMoveRule(){
+        ChessMatch match = play(Fen.parse("4k3/8/8/8/8/8/8/R3K3 w - - 99 80"), "a1", "a2");
+        assertEquals(DrawReason.FIFTY_MOVE_RULE, match.getDrawReason());
+        assertRefused(match, "e8", "e7");
+    }
+    
+    @Test
+    public void noMoveAfterInsufficientMaterial(){
+        ChessMatch match = play(Fen.parse("4k3/8/8/8/8/8/3r4/4K3 w - - 0 1"), "e1", "d2");
+        assertEquals(DrawReason.INSUFFICIENT_MATERIAL, match.getDrawReason());
+        assertRefused(match, "e8", "e7");
+    }
+    
+    private static void assertRefused(ChessMatch match, String source, String target){
+        try{
+            play(match, source, target);
+            fail("A move was played after the game ended");
+        }
+        catch(ChessException e){
+            //Refused, as it should be
+        }
+    }
+    
+    //Squares in pairs, source then target.
+    private static ChessMatch play(ChessMatch match, String... squares){
+        for(int i = 0; i < squares.length; i += 2){
+            match.performChessMove(position(squares[i]), position(squares[i + 1]));
+        }
+        return match;
+    }
+    
+    private static ChessPosition position(String square){
+        return new ChessPosition(square.charAt(0), square.charAt(1) - '0');
+    }
+}
@@ -0,0 +1,46 @@
+package chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class GameTimelineTest {
+    
+    //Knights out and back twice: the starting position is on the board for the third time at ply 8.
+    private static final String[] SHUFFLE = {"g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8", "g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8"};
+    
+    @Test
+    public void seekFindsRepetitionStartedBeforeTheCheckpoint(){
+        GameTimeline timeline = new GameTimeline(5);
+        ChessMatch live = new ChessMatch();
+        for(int i = 0; i < SHUFFLE.length; i += 2){
+            ChessPosition source = position(SHUFFLE[i]);
+            ChessPosition target = position(SHUFFLE[i + 1]);
+            timeline.performChessMove(source, target);
+            live.performChessMove(source, target);
+        }
+        assertEquals(DrawReason.THREEFOLD_REPETITION, live.getDrawReason());
+        assertEquals(DrawReason.THREEFOLD_REPETITION, timeline.seek(8).getDrawReason());
+        assertNull(timeline.seek(7).getDrawReason());
+    }
+    
+    @Test
+    public void seekedMatchKeepsCountingRepetitions(){
+        GameTimeline timeline = new GameTimeline(5);
+        for(int i = 0; i < 12; i += 2){
+            timeline.performChessMove(position(SHUFFLE[i]), position(SHUFFLE[i + 1]));
+        }
+        //Ply 5 is restored from the checkpoint alone; the two moves after it complete the repetition.
+        ChessMatch match = timeline.seek(5);
+        assertNull(match.getDrawReason());
+        match.performChessMove(position(SHUFFLE[10]), position(SHUFFLE[11]));
+        match.performChessMove(position(SHUFFLE[12]), position(SHUFFLE[13]));
+        match.performChessMove(position(SHUFFLE[14]), position(SHUFFLE[15]));
+        assertEquals(DrawReason.THREEFOLD_REPETITION, match.getDrawReason());
+    }
+    
+    private static ChessPosition position(String square){
+        return new ChessPosition(square.charAt(0), square.charAt(1) - '0');
+    }
+}